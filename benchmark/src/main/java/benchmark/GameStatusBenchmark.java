@@ -0,0 +1,60 @@
+package benchmark;
+
+import chess.ChessGame;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The status checks the WebSocket server runs after every move, over the middlegame corpus
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStatusBenchmark {
+
+    private ChessGame[] games;
+
+    @Setup
+    public void setup() {
+        games = Positions.load();
+    }
+
+    @Benchmark
+    public void isInCheck(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.isInCheck(ChessGame.TeamColor.WHITE));
+            blackhole.consume(game.isInCheck(ChessGame.TeamColor.BLACK));
+        }
+    }
+
+    @Benchmark
+    public void isInCheckmate(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+            blackhole.consume(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        }
+    }
+
+    /**
+     * Plays a move and runs every status query the server and client make afterwards;
+     * the new position's status is worked out once and shared by all of them
+     */
+    @Benchmark
+    public void statusAfterMove(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            game.doMove(game.getStatus().legalMoves().iterator().next());
+            blackhole.consume(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+            blackhole.consume(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+            blackhole.consume(game.isInCheck(ChessGame.TeamColor.WHITE));
+            blackhole.consume(game.isInCheck(ChessGame.TeamColor.BLACK));
+            blackhole.consume(game.isInStalemate(ChessGame.TeamColor.WHITE));
+            blackhole.consume(game.getWinner());
+            game.undoMove();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation over the middlegame corpus: pseudo-legal moves per piece and legal
+ * moves per piece, the way the client highlights moves and the server validates them, and
+ * every legal move written in SAN
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    private ChessGame[] games;
+    private ChessBoard[] pieceBoards;
+    private ChessPiece[] pieces;
+    private ChessPosition[] piecePositions;
+    private ChessGame[] pieceGames;
+    private ChessMove[][] legalMoves;
+
+    @Setup
+    public void setup() {
+        games = Positions.load();
+        List<ChessGame> owners = new ArrayList<>();
+        List<ChessPosition> positions = new ArrayList<>();
+        for (ChessGame game : games) {
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    ChessPosition position = ChessPosition.of(row, col);
+                    if (game.getBoard().getPiece(position) != null) {
+                        owners.add(game);
+                        positions.add(position);
+                    }
+                }
+            }
+        }
+        pieceGames = owners.toArray(new ChessGame[0]);
+        piecePositions = positions.toArray(new ChessPosition[0]);
+        pieceBoards = new ChessBoard[pieceGames.length];
+        pieces = new ChessPiece[pieceGames.length];
+        for (int i = 0; i < pieceGames.length; i++) {
+            pieceBoards[i] = pieceGames[i].getBoard();
+            pieces[i] = pieceBoards[i].getPiece(piecePositions[i]);
+        }
+        legalMoves = new ChessMove[games.length][];
+        for (int i = 0; i < games.length; i++) {
+            legalMoves[i] = games[i].getStatus().legalMoves().toArray(new ChessMove[0]);
+        }
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        for (int i = 0; i < pieces.length; i++) {
+            blackhole.consume(pieces[i].pieceMoves(pieceBoards[i], piecePositions[i]));
+        }
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (int i = 0; i < pieceGames.length; i++) {
+            blackhole.consume(pieceGames[i].validMoves(piecePositions[i]));
+        }
+    }
+
+    @Benchmark
+    public void legalMovesForSideToMove(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.legalMoves(game.getTeamTurn()));
+        }
+    }
+
+    @Benchmark
+    public void legalMovesInSan(Blackhole blackhole) {
+        for (int i = 0; i < games.length; i++) {
+            for (ChessMove move : legalMoves[i]) {
+                blackhole.consume(games[i].toSan(move));
+            }
+        }
+    }
+}
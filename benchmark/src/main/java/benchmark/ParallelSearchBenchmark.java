@@ -0,0 +1,59 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchLimits;
+import chess.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to reach a fixed depth over the middlegame corpus with a Lazy SMP search on one
+ * or more threads. Dividing the single-thread score by a multi-thread score gives the
+ * time-to-depth speedup. The table is cleared before every run so no run starts from
+ * the previous one's results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    @Param({"7"})
+    private int depth;
+
+    private ChessGame[] games;
+    private TranspositionTable table;
+    private ParallelSearch search;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        games = Positions.load();
+        table = new TranspositionTable(64);
+        search = new ParallelSearch(threads, table);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public void timeToDepth(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(search.search(game, SearchLimits.depth(depth)));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package benchmark;
+
+import chess.ChessGame;
+
+import java.util.List;
+
+/**
+ * The corpus of middlegame positions every benchmark runs over
+ */
+public final class Positions {
+
+    public static final List<String> MIDDLEGAMES = List.of(
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2QKB1R w KQ - 0 8",
+            "2rq1rk1/pb1nbppp/1p2pn2/2pp4/2PP4/1PN1PN2/PB2BPPP/2RQ1RK1 w - - 0 11",
+            "r2q1rk1/ppp2ppp/2np1n2/2b1p1B1/2B1P1b1/2NP1N2/PPP2PPP/R2Q1RK1 w - - 0 8",
+            "r1b2rk1/2q1bppp/p2ppn2/1p6/3NP3/1BN1B3/PPP1QPPP/R4RK1 w - - 0 12",
+            "r3r1k1/pp3pbp/1qp3p1/2B5/2BP2b1/Q1n2N2/P4PPP/3R1K1R b - - 0 18",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4");
+
+    private Positions() { }
+
+    /**
+     * @return a freshly loaded game for every position in the corpus
+     */
+    public static ChessGame[] load() {
+        ChessGame[] games = new ChessGame[MIDDLEGAMES.size()];
+        for (int i = 0; i < games.length; i++) {
+            games[i] = ChessGame.fromFen(MIDDLEGAMES.get(i));
+        }
+        return games;
+    }
+}
@@ -0,0 +1,41 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed-depth engine search of every position in the middlegame corpus, the work
+ * behind one computer move or server hint
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"5"})
+    private int depth;
+
+    private ChessGame[] games;
+    private Search search;
+
+    @Setup
+    public void setup() {
+        games = Positions.load();
+        search = new Search();
+    }
+
+    @Benchmark
+    public void searchToDepth(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(search.search(game, SearchLimits.depth(depth)));
+        }
+    }
+}
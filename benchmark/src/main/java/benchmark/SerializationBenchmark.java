@@ -0,0 +1,87 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import com.google.gson.Gson;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying and serializing games the way the server stores them and sends them to clients,
+ * against the compact FEN form of the same positions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private final Gson serializer = new Gson();
+    private ChessBoard[] boards;
+    private GameData[] gameData;
+    private String[] gameJson;
+    private ChessGame[] games;
+    private String[] gameFen;
+
+    @Setup
+    public void setup() {
+        games = Positions.load();
+        boards = new ChessBoard[games.length];
+        gameData = new GameData[games.length];
+        gameJson = new String[games.length];
+        gameFen = new String[games.length];
+        for (int i = 0; i < games.length; i++) {
+            boards[i] = games[i].getBoard();
+            gameData[i] = new GameData(i + 1, "white", "black", "game" + i, games[i]);
+            gameJson[i] = serializer.toJson(gameData[i]);
+            gameFen[i] = games[i].toFen();
+        }
+    }
+
+    @Benchmark
+    public void boardClone(Blackhole blackhole) {
+        for (ChessBoard board : boards) {
+            blackhole.consume(board.clone());
+        }
+    }
+
+    @Benchmark
+    public void gameDataToJson(Blackhole blackhole) {
+        for (GameData data : gameData) {
+            blackhole.consume(serializer.toJson(data));
+        }
+    }
+
+    @Benchmark
+    public void gameDataFromJson(Blackhole blackhole) {
+        for (String json : gameJson) {
+            blackhole.consume(serializer.fromJson(json, GameData.class));
+        }
+    }
+
+    @Benchmark
+    public void gameDataRoundTrip(Blackhole blackhole) {
+        for (GameData data : gameData) {
+            blackhole.consume(serializer.fromJson(serializer.toJson(data), GameData.class));
+        }
+    }
+
+    @Benchmark
+    public void gameToFen(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.toFen());
+        }
+    }
+
+    @Benchmark
+    public void gameFromFen(Blackhole blackhole) {
+        for (String fen : gameFen) {
+            blackhole.consume(ChessGame.fromFen(fen));
+        }
+    }
+}
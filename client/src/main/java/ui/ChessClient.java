@@ -255,22 +255,33 @@ public class ChessClient {
     }
 
     private String makeMove(String... params) throws ResponseException {
-        if (params.length != 2) {
+        if (params.length != 1 && params.length != 2) {
             throw new ResponseException(400, "Invalid input. Must provide start position <[a-h][1-8]> and end " +
-                    "position <[a-h][1-8]>.\n Use command " + SET_TEXT_COLOR_BLUE + "show <POSITION>" +
-                    SET_TEXT_COLOR_RED + " to see legal moves for a piece.");
+                    "position <[a-h][1-8]>, or a move in algebraic notation.\n Use command " + SET_TEXT_COLOR_BLUE +
+                    "show <POSITION>" + SET_TEXT_COLOR_RED + " to see legal moves for a piece.");
         }
 
-        ChessMove move = parseChessMove(params);
-        ChessPosition startPos = move.getStartPosition();
-        ChessPosition endPos = move.getEndPosition();
-        ChessBoard serverBoard = this.game.getBoard();
+        ChessMove move;
+        if (params.length == 1) {
+            try {
+                move = this.game.parseSan(params[0]);
+            } catch (InvalidMoveException e) {
+                throw new ResponseException(400, "Invalid input. " + e.getMessage() + ".\n Use command " +
+                        SET_TEXT_COLOR_BLUE + "show <POSITION>" + SET_TEXT_COLOR_RED +
+                        " to see legal moves for a piece.");
+            }
+        } else {
+            move = parseChessMove(params);
+            ChessPosition startPos = move.getStartPosition();
+            ChessPosition endPos = move.getEndPosition();
+            ChessBoard serverBoard = this.game.getBoard();
 
-        if (serverBoard.getPiece(startPos).getPieceType() == ChessPiece.PieceType.PAWN && (
-                this.playerColor.equals("BLACK") && startPos.getRow() == 2 && endPos.getRow() == 1 ||
-                        this.playerColor.equals("WHITE") && startPos.getRow() == 7 && endPos.getRow() == 8)
-                ) {
-            move = getPromotionMove(move);
+            if (serverBoard.getPiece(startPos).getPieceType() == ChessPiece.PieceType.PAWN && (
+                    this.playerColor.equals("BLACK") && startPos.getRow() == 2 && endPos.getRow() == 1 ||
+                            this.playerColor.equals("WHITE") && startPos.getRow() == 7 && endPos.getRow() == 8)
+                    ) {
+                move = getPromotionMove(move);
+            }
         }
 
         try {
@@ -359,11 +370,11 @@ public class ChessClient {
         ChessPosition startPosition;
         ChessPosition endPosition;
         if (playerColor.equals("BLACK")) {
-            startPosition = new ChessPosition(positions[0].getRow(), 9-positions[0].getColumn());
-            endPosition = new ChessPosition(positions[1].getRow(), 9-positions[1].getColumn());
+            startPosition = ChessPosition.of(positions[0].getRow(), 9-positions[0].getColumn());
+            endPosition = ChessPosition.of(positions[1].getRow(), 9-positions[1].getColumn());
         } else {
-            startPosition = new ChessPosition(9 - positions[0].getRow(), positions[0].getColumn());
-            endPosition = new ChessPosition(9 - positions[1].getRow(), positions[1].getColumn());
+            startPosition = ChessPosition.of(9 - positions[0].getRow(), positions[0].getColumn());
+            endPosition = ChessPosition.of(9 - positions[1].getRow(), positions[1].getColumn());
         }
         return new ChessMove(startPosition, endPosition, null);
     }
@@ -379,7 +390,7 @@ public class ChessClient {
         int tempCol = 8 - moveString.charAt(0) + 'a';
         int row = playerColor.equals("BLACK") ? tempRow : 9 - tempRow;
         int col = playerColor.equals("BLACK") ? tempCol : 9 - tempCol;
-        return new ChessPosition(row, col);
+        return ChessPosition.of(row, col);
     }
 
     private String showMoves(String... params) throws ResponseException {
@@ -390,9 +401,9 @@ public class ChessClient {
             ChessPosition position = parseChessPosition(params[0]);
             Collection<ChessMove> validMoves;
             if (playerColor.equals("BLACK")) {
-                validMoves = this.game.validMoves(new ChessPosition(position.getRow(), 9 - position.getColumn()));
+                validMoves = this.game.validMoves(ChessPosition.of(position.getRow(), 9 - position.getColumn()));
             } else {
-                validMoves = this.game.validMoves(new ChessPosition(9 - position.getRow(), position.getColumn()));
+                validMoves = this.game.validMoves(ChessPosition.of(9 - position.getRow(), position.getColumn()));
             }
             HashSet<String> highlightedSquarePositions = new HashSet<>();
             for (ChessMove move : validMoves) {
@@ -440,7 +451,7 @@ public class ChessClient {
                     boardDrawing.append("   ");
                     continue;
                 }
-                ChessPosition position = new ChessPosition(9-row, col);
+                ChessPosition position = ChessPosition.of(9-row, col);
                 ChessPiece piece = board.getPiece(position);
                 if ((i + j) % 2 == 0) {
                     if (highlightSquare) {
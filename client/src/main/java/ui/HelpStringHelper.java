@@ -33,7 +33,7 @@ public class HelpStringHelper {
         String template = """
                     \t{{bluet}}redraw {{whitet}}- redraws the chess board
                     \t{{bluet}}leave {{whitet}}- your current game
-                    \t{{bluet}}move <Start Position> <End Position> {{whitet}}- a piece (ex. move e2 e4)
+                    \t{{bluet}}move <Start Position> <End Position> {{whitet}}- a piece (ex. move e2 e4, or move Nf3)
                     \t{{bluet}}resign {{whitet}}- forfeit the game
                     \t{{bluet}}show <Position> {{whitet}}- highlight legal moves (ex. show f5)
                     \t{{bluet}}help {{whitet}}- with possible commands""";
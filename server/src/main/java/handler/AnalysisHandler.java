@@ -0,0 +1,29 @@
+package handler;
+
+import service.AnalysisService;
+import service.request.AnalysisRequest;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+public class AnalysisHandler extends Handler implements Route {
+
+    final private AnalysisService analysisService;
+
+    public AnalysisHandler(AnalysisService analysisService) {
+        this.analysisService = analysisService;
+    }
+
+    public String handle(Request request, Response response) {
+        String authToken = request.headers("authorization");
+        AnalysisRequest analysisRequest = fromJSON(request.body(), AnalysisRequest.class);
+        Object[] resultArray = analysisService.analyse(authToken, analysisRequest);
+        int status = (int) resultArray[0];
+        response.status(status);
+        if (status == 503) {
+            response.header("Retry-After", "1");
+        }
+        response.body(toJSON(resultArray[1]));
+        return response.body();
+    }
+}
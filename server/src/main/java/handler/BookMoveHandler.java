@@ -0,0 +1,24 @@
+package handler;
+
+import service.BookService;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+public class BookMoveHandler extends Handler implements Route {
+
+    final private BookService bookService;
+
+    public BookMoveHandler(BookService bookService) {
+        this.bookService = bookService;
+    }
+
+    public String handle(Request request, Response response) {
+        String authToken = request.headers("authorization");
+        Integer gameID = Integer.parseInt(request.params("gameID"));
+        Object[] resultArray = bookService.bookMoves(authToken, gameID);
+        response.status((int) resultArray[0]);
+        response.body(toJSON(resultArray[1]));
+        return response.body();
+    }
+}
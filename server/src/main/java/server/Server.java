@@ -1,17 +1,40 @@
 package server;
 
+import chess.Tablebase;
+import chess.engine.OpeningBook;
 import dataaccess.DataAccess;
 import dataaccess.MySqlDataAccess;
 import dataaccess.ResponseException;
 import server.websocket.WebSocketHandler;
+import service.AnalysisService;
+import service.BookService;
 import service.ClearService;
 import service.GameService;
 import service.UserService;
 import spark.*;
 import handler.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class Server {
 
+    /**
+     * System property naming the opening book file used for book move hints
+     */
+    public static final String BOOK_PROPERTY = "chess.book";
+
+    /**
+     * System property naming the directory of endgame tables that finished endgames are
+     * adjudicated with
+     */
+    public static final String TABLEBASE_PROPERTY = "chess.tablebases";
+
+    private OpeningBook book;
+    private Tablebase tablebase;
+    private AnalysisService analysisService;
+
     public int run(int desiredPort) {
         final DataAccess dataAccess;
         try {
@@ -23,6 +46,13 @@ public class Server {
         final UserService userService = new UserService(dataAccess);
         final GameService gameService = new GameService(dataAccess);
         final ClearService clearService = new ClearService(dataAccess);
+        book = openBook(Path.of(System.getProperty(BOOK_PROPERTY, "book.bin")));
+        final BookService bookService = new BookService(dataAccess, book);
+        tablebase = openTablebase(Path.of(System.getProperty(TABLEBASE_PROPERTY, "tablebases")));
+        // Leave a core free for the threads serving requests and live games
+        analysisService = new AnalysisService(dataAccess, tablebase,
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                AnalysisService.DEFAULT_QUEUE_CAPACITY, AnalysisService.DEFAULT_MAX_BATCHES);
 
         final RegisterHandler registerHandler = new RegisterHandler(userService);
         final LoginHandler loginHandler = new LoginHandler(userService);
@@ -33,7 +63,9 @@ public class Server {
         final JoinGameHandler joinGameHandler = new JoinGameHandler(gameService);
         final GetGameHandler getGameHandler = new GetGameHandler(gameService);
         final UpdateBoardHandler updateBoardHandler = new UpdateBoardHandler(gameService);
-        final WebSocketHandler webSocketHandler = new WebSocketHandler(userService, gameService);
+        final BookMoveHandler bookMoveHandler = new BookMoveHandler(bookService);
+        final AnalysisHandler analysisHandler = new AnalysisHandler(analysisService);
+        final WebSocketHandler webSocketHandler = new WebSocketHandler(userService, gameService, tablebase);
 
         Spark.port(desiredPort);
 
@@ -50,14 +82,69 @@ public class Server {
         Spark.put("/game", joinGameHandler);
         Spark.put("/game/:gameID", updateBoardHandler);
         Spark.get("/game/:gameID", getGameHandler);
+        Spark.get("/game/:gameID/book", bookMoveHandler);
+        Spark.post("/analysis", analysisHandler);
 
         Spark.awaitInitialization();
         return Spark.port();
     }
 
     public void stop() {
+        // Finish the analysis batches first, since their request threads wait on them
+        if (analysisService != null) {
+            analysisService.close();
+            analysisService = null;
+        }
         Spark.stop();
         Spark.awaitStop();
+        if (book != null) {
+            try {
+                book.close();
+            } catch (IOException e) {
+                System.err.println("Could not close opening book: " + e.getMessage());
+            }
+            book = null;
+        }
+        if (tablebase != null) {
+            try {
+                tablebase.close();
+            } catch (IOException e) {
+                System.err.println("Could not close endgame tablebase: " + e.getMessage());
+            }
+            tablebase = null;
+        }
+    }
+
+    /**
+     * @return the book, or null if there is no book file or it cannot be read, in which
+     * case the server runs without book hints
+     */
+    private static OpeningBook openBook(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return new OpeningBook(file);
+        } catch (IOException e) {
+            System.err.println("Could not open opening book " + file + ": " + e.getMessage());
+            return null;
+        }
     }
 
+    /**
+     * @return the tablebase, or one without tables if there is no table directory or it
+     * cannot be read, in which case only games without enough material left to mate are
+     * adjudicated
+     */
+    private static Tablebase openTablebase(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return new Tablebase();
+        }
+        try {
+            return new Tablebase(directory);
+        } catch (IOException e) {
+            System.err.println("Could not open endgame tablebase " + directory + ": " + e.getMessage());
+            return new Tablebase();
+        }
+    }
 }
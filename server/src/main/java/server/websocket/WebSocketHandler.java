@@ -2,7 +2,9 @@ package server.websocket;
 
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.GameStatus;
 import chess.InvalidMoveException;
+import chess.Tablebase;
 import com.google.gson.Gson;
 import model.GameData;
 import model.UserData;
@@ -24,10 +26,15 @@ public class WebSocketHandler {
     private final ConnectionManager connections = new ConnectionManager();
     private final UserService userService;
     private final GameService gameService;
+    private final Tablebase tablebase;
 
-    public WebSocketHandler(UserService userService, GameService gameService) {
+    /**
+     * @param tablebase the endgame tables games are adjudicated with once they reach them
+     */
+    public WebSocketHandler(UserService userService, GameService gameService, Tablebase tablebase) {
         this.userService = userService;
         this.gameService = gameService;
+        this.tablebase = tablebase;
     }
 
     @OnWebSocketMessage
@@ -119,35 +126,54 @@ public class WebSocketHandler {
                 return;
             }
 
+            if (!game.getStatus().legalMoves().contains(move)) {
+                sendErrorMessage(session, "Not a legal chess move.");
+                return;
+            }
+            String san = game.toSan(move);
             gameData.game().makeMove(move);
             gameService.updateGame(authToken, gameID, gameData);
 
             LoadGameMessage loadGameMessage = new LoadGameMessage(game);
             connections.broadcast(authToken, loadGameMessage, true);
 
-            NotificationMessage notification = getMoveNotification(authToken, move);
+            NotificationMessage notification = getMoveNotification(authToken, san);
             connections.broadcast(authToken, notification, false);
 
-            ChessGame gameRef = gameData.game();
-            if (gameRef.isInCheckmate(ChessGame.TeamColor.WHITE)) {
+            GameStatus status = game.getStatus();
+            String username = status.team() == ChessGame.TeamColor.WHITE ?
+                    gameData.whiteUsername() : gameData.blackUsername();
+            if (status.isCheckmate()) {
                 game.setGameOver(true);
-                game.setTeamTurn(ChessGame.TeamColor.BLACK);
-                var msg = new NotificationMessage(String.format("%s is in checkmate!", gameData.whiteUsername()));
+                game.setTeamTurn(status.team() == ChessGame.TeamColor.WHITE ?
+                        ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+                var msg = new NotificationMessage(String.format("%s is in checkmate!", username));
                 connections.broadcast(authToken, msg, true);
-            } else if (gameRef.isInCheckmate(ChessGame.TeamColor.BLACK)) {
+            } else if (status.isStalemate()) {
                 game.setGameOver(true);
-                game.setTeamTurn(ChessGame.TeamColor.WHITE);
-                var msg = new NotificationMessage(String.format("%s is in checkmate!", gameData.blackUsername()));
+                var msg = new NotificationMessage("Stalemate!");
                 connections.broadcast(authToken, msg, true);
-            } else if (gameRef.isInCheck(ChessGame.TeamColor.WHITE)) {
-                var msg = new NotificationMessage(String.format("%s is in check.", gameData.whiteUsername()));
+            } else if (game.isThreefoldRepetition()) {
+                game.setGameOver(true);
+                var msg = new NotificationMessage("Draw by threefold repetition!");
                 connections.broadcast(authToken, msg, true);
-            } else if (gameRef.isInCheck(ChessGame.TeamColor.BLACK)) {
-                var msg = new NotificationMessage(String.format("%s is in check.", gameData.blackUsername()));
+            } else if (game.isFiftyMoveDraw()) {
+                game.setGameOver(true);
+                var msg = new NotificationMessage("Draw by the fifty-move rule!");
                 connections.broadcast(authToken, msg, true);
-            } else if (gameRef.isInStalemate(ChessGame.TeamColor.WHITE)) {
+            } else if (game.isGameOver(tablebase)) {
                 game.setGameOver(true);
-                var msg = new NotificationMessage("Stalemate!");
+                String winner = game.getWinner(tablebase);
+                String text;
+                if (winner.equals("DRAW")) {
+                    text = "Draw: the endgame cannot be won by either side!";
+                } else {
+                    text = String.format("%s wins: the endgame is a forced mate!",
+                            winner.equals("WHITE") ? gameData.whiteUsername() : gameData.blackUsername());
+                }
+                connections.broadcast(authToken, new NotificationMessage(text), true);
+            } else if (status.inCheck()) {
+                var msg = new NotificationMessage(String.format("%s is in check.", username));
                 connections.broadcast(authToken, msg, true);
             }
 
@@ -160,16 +186,9 @@ public class WebSocketHandler {
         }
     }
 
-    private NotificationMessage getMoveNotification(String authToken, ChessMove move) {
+    private NotificationMessage getMoveNotification(String authToken, String san) {
         String username = connections.getUsername(authToken);
-        char startColumn = (char) (move.getStartPosition().getColumn() - 1 + 'a');
-        int startRow = move.getStartPosition().getRow();
-        char endColumn = (char) (move.getEndPosition().getColumn() - 1 + 'a');
-        int endRow = move.getEndPosition().getRow();
-
-        String moveString = "from " + startColumn + startRow + " to " + endColumn + endRow;
-        String message = String.format("%s moved " + moveString + ".", username);
-        return new NotificationMessage(message);
+        return new NotificationMessage(String.format("%s played %s.", username, san));
     }
 
     private void leave(String authToken, int gameID) throws IOException {
@@ -0,0 +1,240 @@
+package service;
+
+import chess.ChessGame;
+import chess.GameStatus;
+import chess.Tablebase;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import service.request.AnalysisRequest;
+import service.result.AnalysisResult;
+import service.result.PositionAnalysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyses batches of positions, given in FEN or as the IDs of games on the server, and
+ * reports the best move, evaluation and status of each.
+ * <p>
+ * The searches run on a pool of their own with a fixed number of workers, so a large
+ * batch keeps those workers busy without taking threads from the requests and WebSocket
+ * sessions of live games. Each position waiting for or being searched holds a permit,
+ * and a batch that cannot get permits for all of its positions at once is turned away
+ * with a 503 instead of queueing without bound. The request thread of each batch waits
+ * for its results, so only a few batches are let in at once; the rest are turned away
+ * the same way before they can tie up the server's shared request threads.
+ */
+public class AnalysisService implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCHES = 4;
+    public static final int MAX_POSITIONS = 500;
+    public static final int DEFAULT_DEPTH = 8;
+    public static final int MAX_DEPTH = 16;
+    public static final long DEFAULT_TIME_MILLIS = 1000;
+    public static final long MAX_TIME_MILLIS = 10_000;
+
+    /**
+     * The size of each worker's transposition table, kept small since every worker has
+     * one and the positions of a batch are mostly unrelated
+     */
+    private static final int TABLE_MEGABYTES = 8;
+
+    private static final String SHUTTING_DOWN = "Error: analysis is shutting down";
+
+    private final DataAccess dataAccess;
+    private final ForkJoinPool pool;
+    private final Semaphore permits;
+    private final Semaphore batches;
+    private final ThreadLocal<Search> searches;
+    private volatile boolean closing;
+
+    /**
+     * @param tablebase     the endgame tables searches probe, or null to search without
+     * @param workers       the number of positions searched at once
+     * @param queueCapacity the number of positions that may be waiting or being searched
+     *                      at once, across all batches
+     * @param maxBatches    the number of batches, each holding a request thread, that may
+     *                      be analysed at once
+     */
+    public AnalysisService(DataAccess dataAccess, Tablebase tablebase, int workers, int queueCapacity,
+                           int maxBatches) {
+        if (workers < 1 || queueCapacity < 1 || maxBatches < 1) {
+            throw new IllegalArgumentException("An analysis pool needs at least one worker, queue slot and batch");
+        }
+        this.dataAccess = dataAccess;
+        this.pool = new ForkJoinPool(workers, AnalysisService::newWorker, null, true,
+                0, workers, 1, null, 60, TimeUnit.SECONDS);
+        this.permits = new Semaphore(queueCapacity);
+        this.batches = new Semaphore(maxBatches);
+        this.searches = ThreadLocal.withInitial(() -> {
+            Search search = new Search(new TranspositionTable(TABLE_MEGABYTES));
+            search.setTablebase(tablebase);
+            return search;
+        });
+    }
+
+    public Object[] analyse(String authToken, AnalysisRequest request) {
+        if (request == null) {
+            return new Object[] {400, new AnalysisResult(null, "Error: bad request")};
+        }
+        List<String> fens = request.fens() == null ? List.of() : request.fens();
+        List<Integer> gameIDs = request.gameIDs() == null ? List.of() : request.gameIDs();
+        int count = fens.size() + gameIDs.size();
+        int depth = request.depth() == null ? DEFAULT_DEPTH : request.depth();
+        long timeMillis = request.timeMillis() == null ? DEFAULT_TIME_MILLIS : request.timeMillis();
+        if (count == 0 || depth < 1 || timeMillis < 1) {
+            return new Object[] {400, new AnalysisResult(null, "Error: bad request")};
+        }
+        if (count > MAX_POSITIONS) {
+            return new Object[] {400, new AnalysisResult(null,
+                    "Error: at most " + MAX_POSITIONS + " positions can be analysed at once")};
+        }
+        SearchLimits limits = new SearchLimits(Math.min(depth, MAX_DEPTH), Math.min(timeMillis, MAX_TIME_MILLIS), 0);
+
+        try {
+            dataAccess.getAuth(authToken);
+        } catch (DataAccessException e) {
+            if (e.getMessage().contains("not found")) {
+                return new Object[] {401, new AnalysisResult(null, "Error: unauthorized")};
+            }
+            return new Object[] {500, new AnalysisResult(null, "Error: " + e.getMessage())};
+        }
+
+        if (!batches.tryAcquire()) {
+            return new Object[] {503, new AnalysisResult(null, "Error: too many analyses are running")};
+        }
+        try {
+            PositionAnalysis[] analyses = new PositionAnalysis[count];
+            ChessGame[] games = new ChessGame[count];
+            Integer[] ids = new Integer[count];
+            int searched = 0;
+            for (int i = 0; i < fens.size(); i++) {
+                try {
+                    games[i] = ChessGame.fromFen(fens.get(i));
+                    searched++;
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    analyses[i] = PositionAnalysis.failed(null, null, "Error: " + e.getMessage());
+                }
+            }
+            for (int i = 0; i < gameIDs.size(); i++) {
+                int index = fens.size() + i;
+                ids[index] = gameIDs.get(i);
+                if (ids[index] == null) {
+                    analyses[index] = PositionAnalysis.failed(null, null, "Error: game not found");
+                    continue;
+                }
+                try {
+                    games[index] = dataAccess.getGame(ids[index]).game();
+                    searched++;
+                } catch (DataAccessException e) {
+                    if (!e.getMessage().contains("not found")) {
+                        throw e;
+                    }
+                    analyses[index] = PositionAnalysis.failed(null, ids[index], "Error: game not found");
+                }
+            }
+
+            if (!permits.tryAcquire(searched)) {
+                return new Object[] {503, new AnalysisResult(null, "Error: analysis queue is full")};
+            }
+            List<CompletableFuture<PositionAnalysis>> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ChessGame game = games[i];
+                Integer gameID = ids[i];
+                tasks.add(null);
+                if (game == null) {
+                    continue;
+                }
+                try {
+                    tasks.set(i, CompletableFuture.supplyAsync(() -> search(game, gameID, limits), pool));
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    analyses[i] = PositionAnalysis.failed(game.toFen(), gameID, SHUTTING_DOWN);
+                }
+            }
+            // Waiting on the futures rather than on the pool's own tasks keeps this thread
+            // from running searches itself when the workers have not picked them up yet
+            for (int i = 0; i < count; i++) {
+                if (tasks.get(i) != null) {
+                    analyses[i] = tasks.get(i).join();
+                }
+            }
+            return new Object[] {200, new AnalysisResult(List.of(analyses), null)};
+        } catch (Exception e) {
+            return new Object[] {500, new AnalysisResult(null, "Error: " + e.getMessage())};
+        } finally {
+            batches.release();
+        }
+    }
+
+    /**
+     * Stops taking batches and waits for the workers to finish. Searches already running
+     * finish within their time limit, and positions still queued are answered straight
+     * away as not analysed, so every waiting request gets its response.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(2 * MAX_TIME_MILLIS, TimeUnit.MILLISECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Searches one position on a worker, giving back the position's permit when done
+     */
+    private PositionAnalysis search(ChessGame game, Integer gameID, SearchLimits limits) {
+        String fen = game.toFen();
+        try {
+            if (closing) {
+                return PositionAnalysis.failed(fen, gameID, SHUTTING_DOWN);
+            }
+            GameStatus status = game.getStatus();
+            if (status.isCheckmate()) {
+                return new PositionAnalysis(fen, gameID, null, null, null, 0, "CHECKMATE", null);
+            } else if (status.isStalemate()) {
+                return new PositionAnalysis(fen, gameID, null, null, null, 0, "STALEMATE", null);
+            } else if (game.isFiftyMoveDraw() || game.isThreefoldRepetition()) {
+                return new PositionAnalysis(fen, gameID, null, null, null, 0, "DRAW", null);
+            }
+
+            SearchResult result = searches.get().search(game, limits);
+            Integer score = result.score();
+            Integer mate = null;
+            if (Search.isMateScore(result.score())) {
+                score = null;
+                mate = result.score() > 0 ? (Search.MATE - result.score() + 1) / 2 : -(Search.MATE + result.score()) / 2;
+            }
+            String state = game.getGameOver() ? "GAME_OVER" : status.inCheck() ? "CHECK" : "ONGOING";
+            return new PositionAnalysis(fen, gameID, game.toSan(result.bestMove()), score, mate, result.depth(),
+                    state, null);
+        } catch (RuntimeException e) {
+            return PositionAnalysis.failed(fen, gameID, "Error: " + e.getMessage());
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("analysis-" + worker.getPoolIndex());
+        return worker;
+    }
+}
@@ -0,0 +1,45 @@
+package service;
+
+import chess.engine.OpeningBook;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import model.GameData;
+import service.result.BookMoveResult;
+
+/**
+ * Looks up a game's current position in the server's opening book, so players can be
+ * shown the book moves as a hint
+ */
+public class BookService {
+    private final DataAccess dataAccess;
+    private final OpeningBook book;
+
+    /**
+     * @param book the opening book to look positions up in, or null if the server has none
+     */
+    public BookService(DataAccess dataAccess, OpeningBook book) {
+        this.dataAccess = dataAccess;
+        this.book = book;
+    }
+
+    public Object[] bookMoves(String authToken, Integer gameID) {
+        if (gameID == null) {
+            return new Object[] {400, new BookMoveResult(null, "Error: bad request")};
+        }
+        try {
+            dataAccess.getAuth(authToken);
+            if (book == null) {
+                return new Object[] {404, new BookMoveResult(null, "Error: no opening book")};
+            }
+            GameData gameData = dataAccess.getGame(gameID);
+            return new Object[] {200, new BookMoveResult(book.entries(gameData.game()), null)};
+        } catch (DataAccessException e) {
+            if (e.getMessage().contains("not found")) {
+                return new Object[] {401, new BookMoveResult(null, "Error: unauthorized")};
+            }
+            return new Object[] {500, new BookMoveResult(null, "Error: " + e.getMessage())};
+        } catch (Exception e) {
+            return new Object[] {500, new BookMoveResult(null, "Error: " + e.getMessage())};
+        }
+    }
+}
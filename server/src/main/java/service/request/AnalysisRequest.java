@@ -0,0 +1,15 @@
+package service.request;
+
+import java.util.List;
+
+/**
+ * A batch of positions to analyse. Either list may be left out, and a limit left out
+ * takes the service's default.
+ *
+ * @param fens       positions given in FEN
+ * @param gameIDs    games on the server whose current positions are analysed
+ * @param depth      the deepest each search may go, in plies
+ * @param timeMillis how long each search may take, in milliseconds
+ */
+public record AnalysisRequest(List<String> fens, List<Integer> gameIDs, Integer depth, Long timeMillis) {
+}
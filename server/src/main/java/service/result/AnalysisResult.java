@@ -0,0 +1,10 @@
+package service.result;
+
+import java.util.List;
+
+/**
+ * @param positions the analysis of each position, FENs first and then games, in the
+ *                  order they were asked for
+ */
+public record AnalysisResult(List<PositionAnalysis> positions, String message) {
+}
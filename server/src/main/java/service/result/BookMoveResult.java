@@ -0,0 +1,8 @@
+package service.result;
+
+import chess.engine.BookEntry;
+
+import java.util.List;
+
+public record BookMoveResult(List<BookEntry> moves, String message) {
+}
@@ -0,0 +1,23 @@
+package service.result;
+
+/**
+ * What the analysis of one position found
+ *
+ * @param fen      the position, or null if it could not be read
+ * @param gameID   the game the position was taken from, or null if it was given in FEN
+ * @param bestMove the best move in SAN, or null if the position was not searched
+ * @param score    the position's value in centipawns for the side to move, or null if
+ *                 it was not searched or either side can force mate
+ * @param mate     the number of moves to a forced checkmate: positive if the side to
+ *                 move mates, negative if it is mated, or null if neither can force it
+ * @param depth    the depth the search finished, in plies
+ * @param status   CHECKMATE, STALEMATE, DRAW, GAME_OVER, CHECK or ONGOING
+ * @param message  why the position could not be analysed, or null if it was
+ */
+public record PositionAnalysis(String fen, Integer gameID, String bestMove, Integer score, Integer mate,
+                               Integer depth, String status, String message) {
+
+    public static PositionAnalysis failed(String fen, Integer gameID, String message) {
+        return new PositionAnalysis(fen, gameID, null, null, null, null, null, message);
+    }
+}
@@ -0,0 +1,164 @@
+package service;
+
+import chess.ChessGame;
+import dataaccess.DataAccess;
+import dataaccess.MemoryDataAccess;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.request.AnalysisRequest;
+import service.request.RegisterRequest;
+import service.result.AnalysisResult;
+import service.result.CreateGameResult;
+import service.result.PositionAnalysis;
+import service.result.RegisterResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisServiceTests {
+    private static final String MATE_IN_ONE = "k7/8/1K6/8/8/8/8/6Q1 w - - 0 1";
+    private static final String MATED = "R5k1/5ppp/8/8/8/8/8/6K1 b - - 1 1";
+    private static final String STALEMATE = "k7/2Q5/1K6/8/8/8/8/8 b - - 0 1";
+
+    private DataAccess dataAccess;
+    private AnalysisService analysisService;
+    private String authToken;
+    private int gameID;
+
+    @BeforeEach
+    void setup() {
+        dataAccess = new MemoryDataAccess();
+        UserService userService = new UserService(dataAccess);
+        GameService gameService = new GameService(dataAccess);
+        authToken = ((RegisterResult) userService.register(new RegisterRequest("user1",
+                "12345", "user1@mail.com"))[1]).getAuthToken();
+        gameID = ((CreateGameResult) gameService.createGame(authToken, "game1")[1]).getGameID();
+        analysisService = new AnalysisService(dataAccess, null, 2, 4, 1);
+    }
+
+    @AfterEach
+    void closeService() {
+        analysisService.close();
+    }
+
+    @Test
+    void analyseSuccess() {
+        AnalysisRequest request = new AnalysisRequest(List.of(MATE_IN_ONE, MATED, STALEMATE), List.of(gameID), 3, null);
+        Object[] output = analysisService.analyse(authToken, request);
+        assertEquals(200, (int) output[0]);
+        List<PositionAnalysis> positions = ((AnalysisResult) output[1]).positions();
+        assertEquals(4, positions.size());
+
+        PositionAnalysis mateInOne = positions.get(0);
+        assertEquals(MATE_IN_ONE, mateInOne.fen());
+        assertEquals("Qg8#", mateInOne.bestMove());
+        assertEquals(1, mateInOne.mate());
+        assertNull(mateInOne.score());
+        assertEquals("ONGOING", mateInOne.status());
+
+        assertEquals("CHECKMATE", positions.get(1).status());
+        assertNull(positions.get(1).bestMove());
+        assertEquals("STALEMATE", positions.get(2).status());
+
+        PositionAnalysis game = positions.get(3);
+        assertEquals(gameID, game.gameID());
+        assertEquals(new ChessGame().toFen(), game.fen());
+        assertNotNull(game.bestMove());
+        assertNotNull(game.score());
+        assertEquals(3, game.depth());
+        assertNull(game.message());
+    }
+
+    @Test
+    void analyseReportsPositionsItCannotRead() {
+        AnalysisRequest request = new AnalysisRequest(List.of("not a fen", MATED), List.of(gameID + 100), 1, null);
+        Object[] output = analysisService.analyse(authToken, request);
+        assertEquals(200, (int) output[0]);
+        List<PositionAnalysis> positions = ((AnalysisResult) output[1]).positions();
+        assertTrue(positions.get(0).message().startsWith("Error: Invalid FEN"), positions.get(0).message());
+        assertEquals("CHECKMATE", positions.get(1).status());
+        assertEquals("Error: game not found", positions.get(2).message());
+        assertEquals(gameID + 100, positions.get(2).gameID());
+    }
+
+    @Test
+    void analyseFailUnauthorized() {
+        Object[] output = analysisService.analyse("invalid_auth_token",
+                new AnalysisRequest(List.of(MATED), null, null, null));
+        assertEquals(401, (int) output[0]);
+        assertEquals("Error: unauthorized", ((AnalysisResult) output[1]).message());
+    }
+
+    @Test
+    void analyseFailBadRequest() {
+        assertEquals(400, (int) analysisService.analyse(authToken, null)[0]);
+        assertEquals(400, (int) analysisService.analyse(authToken, new AnalysisRequest(null, List.of(), null, null))[0]);
+        assertEquals(400, (int) analysisService.analyse(authToken,
+                new AnalysisRequest(List.of(MATED), null, 0, null))[0]);
+        List<String> tooMany = new ArrayList<>(Collections.nCopies(AnalysisService.MAX_POSITIONS + 1, MATED));
+        assertEquals(400, (int) analysisService.analyse(authToken, new AnalysisRequest(tooMany, null, 1, null))[0]);
+    }
+
+    @Test
+    void analyseFailQueueFull() {
+        List<String> fens = Collections.nCopies(5, MATE_IN_ONE);
+        Object[] output = analysisService.analyse(authToken, new AnalysisRequest(fens, null, 2, null));
+        assertEquals(503, (int) output[0]);
+        assertEquals("Error: analysis queue is full", ((AnalysisResult) output[1]).message());
+
+        // Positions that cannot be read take no place in the queue, and finished
+        // batches give theirs back
+        for (int i = 0; i < 3; i++) {
+            List<String> batch = new ArrayList<>(Collections.nCopies(4, MATE_IN_ONE));
+            batch.add("not a fen");
+            assertEquals(200, (int) analysisService.analyse(authToken, new AnalysisRequest(batch, null, 2, null))[0]);
+        }
+    }
+
+    @Test
+    void analyseFailTooManyBatches() throws InterruptedException {
+        AnalysisService slow = new AnalysisService(dataAccess, null, 1, 8, 1);
+        try {
+            Thread batch = startLongBatch(slow, new Object[1]);
+            Thread.sleep(300);
+            Object[] output = slow.analyse(authToken, new AnalysisRequest(List.of(MATED), null, 1, null));
+            assertEquals(503, (int) output[0]);
+            assertEquals("Error: too many analyses are running", ((AnalysisResult) output[1]).message());
+            batch.join();
+            assertEquals(200, (int) slow.analyse(authToken, new AnalysisRequest(List.of(MATED), null, 1, null))[0]);
+        } finally {
+            slow.close();
+        }
+    }
+
+    @Test
+    void closeAnswersBatchesStillWaiting() throws InterruptedException {
+        AnalysisService slow = new AnalysisService(dataAccess, null, 1, 8, 1);
+        Object[] output = new Object[1];
+        Thread batch = startLongBatch(slow, output);
+        Thread.sleep(300);
+        slow.close();
+        batch.join(5000);
+        assertFalse(batch.isAlive());
+        assertEquals(200, (int) ((Object[]) output[0])[0]);
+        List<PositionAnalysis> positions = ((AnalysisResult) ((Object[]) output[0])[1]).positions();
+        assertNotNull(positions.get(0).bestMove());
+        assertEquals("Error: analysis is shutting down", positions.get(3).message());
+    }
+
+    /**
+     * Starts a batch of four searches that take about 400 milliseconds each on one worker
+     */
+    private Thread startLongBatch(AnalysisService service, Object[] output) {
+        String start = new ChessGame().toFen();
+        AnalysisRequest request = new AnalysisRequest(Collections.nCopies(4, start), null,
+                AnalysisService.MAX_DEPTH, 400L);
+        Thread batch = new Thread(() -> output[0] = service.analyse(authToken, request));
+        batch.start();
+        return batch;
+    }
+}
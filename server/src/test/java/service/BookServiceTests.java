@@ -0,0 +1,78 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.engine.BookEntry;
+import chess.engine.OpeningBook;
+import chess.engine.OpeningBookBuilder;
+import dataaccess.DataAccess;
+import dataaccess.MemoryDataAccess;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.request.RegisterRequest;
+import service.result.BookMoveResult;
+import service.result.CreateGameResult;
+import service.result.RegisterResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BookServiceTests {
+    private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+
+    private DataAccess dataAccess;
+    private OpeningBook book;
+    private String authToken;
+    private int gameID;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setup() throws IOException {
+        dataAccess = new MemoryDataAccess();
+        UserService userService = new UserService(dataAccess);
+        GameService gameService = new GameService(dataAccess);
+        authToken = ((RegisterResult) userService.register(new RegisterRequest("user1",
+                "12345", "user1@mail.com"))[1]).getAuthToken();
+        gameID = ((CreateGameResult) gameService.createGame(authToken, "game1")[1]).getGameID();
+
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        builder.add(new ChessGame(), E4, 5);
+        Path file = directory.resolve("book.bin");
+        builder.write(file);
+        book = new OpeningBook(file);
+    }
+
+    @AfterEach
+    void closeBook() throws IOException {
+        book.close();
+    }
+
+    @Test
+    void bookMovesSuccess() {
+        Object[] output = new BookService(dataAccess, book).bookMoves(authToken, gameID);
+        assertEquals(200, (int) output[0]);
+        assertEquals(new BookMoveResult(List.of(new BookEntry(E4, 5)), null), output[1]);
+    }
+
+    @Test
+    void bookMovesFailUnauthorized() {
+        Object[] output = new BookService(dataAccess, book).bookMoves("invalid_auth_token", gameID);
+        assertEquals(401, (int) output[0]);
+        assertEquals("Error: unauthorized", ((BookMoveResult) output[1]).message());
+    }
+
+    @Test
+    void bookMovesFailWithoutBook() {
+        Object[] output = new BookService(dataAccess, null).bookMoves(authToken, gameID);
+        assertEquals(404, (int) output[0]);
+        assertEquals("Error: no opening book", ((BookMoveResult) output[1]).message());
+    }
+}
@@ -0,0 +1,235 @@
+package chess;
+
+/**
+ * Precomputed attack sets for each piece type, indexed by the 0-63 square
+ * numbering used by {@link BitBoard}.
+ * <p>
+ * Sliding pieces use magic bitboards: the blockers on a slider's rays are multiplied by
+ * a per-square magic number whose top bits index straight into a table of attack sets,
+ * so a rook or bishop lookup is a mask, a multiply, a shift and an array read. The
+ * magic numbers were found by random trial; the tables behind them are filled at class
+ * load, which fails loudly if a magic ever maps two different attack sets to one slot.
+ */
+public final class Attacks {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = {
+            0x1080018440021120L, 0x2040200040001000L, 0x0B00084100600290L,
+            0x0080100080080004L, 0x0280180004000280L, 0x92000200040810C1L,
+            0x1080020001002080L, 0x0100021048802100L, 0x1052800040002082L,
+            0x4020C01001200041L, 0x2002801000802001L, 0x0061001000210008L,
+            0x0020800400080080L, 0x006A001044220008L, 0x0D44808002000100L,
+            0x0201001180620500L, 0x0100308000400080L, 0x409009400041A000L,
+            0x0000110040200101L, 0x8100210008100102L, 0x41A8004040040200L,
+            0x2000808002000400L, 0x2008040008810210L, 0x031102001C004081L,
+            0x0400400480028220L, 0x0002010200408020L, 0x8801081100200040L,
+            0x2040100080800800L, 0x0001008500100800L, 0x0002002200100994L,
+            0x024200020008C104L, 0xC200004200008401L, 0x6020004000808000L,
+            0x0040100800200020L, 0x8002801002802000L, 0x0801210009001000L,
+            0xB148008008800400L, 0x013A002004040010L, 0x000010281C000603L,
+            0x0010004402000081L, 0x8020400020808000L, 0x0000500820044002L,
+            0x0081004120030012L, 0x0284420010220008L, 0x5840040008008080L,
+            0x0000040002008080L, 0x0101000200C10004L, 0x80C00120408A0014L,
+            0x0240204080010100L, 0x0801002080400100L, 0x0050200080100080L,
+            0x0000080090008480L, 0x1018008008040180L, 0x0204010040020040L,
+            0x005008024110A400L, 0x0808004920840200L, 0x1A00248000184101L,
+            0x0040001081082041L, 0x000201089280A042L, 0x2001100100052009L,
+            0x00A2011008042002L, 0x112300140022A811L, 0x4B09100108408224L,
+            0x1810152104009046L
+    };
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = {
+            0x00200284084C0040L, 0x0008024800410441L, 0x0010011200202930L,
+            0x004820405200A001L, 0x0044042000000000L, 0x0880880440210308L,
+            0x8082023062081228L, 0x0201920084444004L, 0x0100C04308111102L,
+            0x000020010400A888L, 0x0198110404044120L, 0x4250C4440084C000L,
+            0x4410440422004000L, 0x4010010460444810L, 0x040080410820102CL,
+            0x0001102401041000L, 0x01C00060080AB280L, 0x3004104210540102L,
+            0x8004080844420200L, 0x20C8010420411012L, 0x0204010210140000L,
+            0x104A020108010400L, 0x0402088080900820L, 0x2080210600842481L,
+            0x46A0040111044880L, 0x2041200044080200L, 0x0104022081080100L,
+            0x2825080201004100L, 0x0489080401004000L, 0x8000410002008200L,
+            0x8000840001240220L, 0x0012120C01209200L, 0x4801114088100422L,
+            0x01829819000C1000L, 0x0009402210100404L, 0x03001108000C0040L,
+            0x0024081200012008L, 0x5420041120030080L, 0x9108382081504200L,
+            0xA104109200002100L, 0x2004040440008404L, 0x1046289014000824L,
+            0x8901014110000A40L, 0xA240084010421201L, 0x0208440408203400L,
+            0x02065408020010A2L, 0x0902042C18802402L, 0x9008180040420080L,
+            0x000508821040900BL, 0x001C208410080288L, 0x8200902284108000L,
+            0x0000C00220881008L, 0x4000100813041000L, 0x8600202441520420L,
+            0x0088108400A40244L, 0xA2040400C2120200L, 0x0006008084100201L,
+            0x0C0009008C846008L, 0x0010002080882100L, 0x0850000040841102L,
+            0x0000800084208213L, 0x0000080420040106L, 0x08C0089004085040L,
+            0x8102048404040220L
+    };
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    private static final int[][] KNIGHT_STEPS = {{1,2}, {2,1}, {2,-1}, {1,-2}, {-1,-2}, {-2,-1}, {-2,1}, {-1,2}};
+    private static final int[][] KING_STEPS = {{1,0}, {-1,0}, {0,1}, {0,-1}, {1,1}, {-1,1}, {1,-1}, {-1,-1}};
+    private static final int[][] ROOK_DIRECTIONS = {{1,0}, {-1,0}, {0,1}, {0,-1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1,1}, {-1,1}, {1,-1}, {-1,-1}};
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = stepAttacks(square, KNIGHT_STEPS);
+            KING[square] = stepAttacks(square, KING_STEPS);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = stepAttacks(square, new int[][] {{1,1}, {-1,1}});
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = stepAttacks(square, new int[][] {{1,-1}, {-1,-1}});
+        }
+        for (int square = 0; square < 64; square++) {
+            initMagic(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_ATTACKS);
+            initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_ATTACKS);
+        }
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                long toBit = 1L << to;
+                long fromBit = 1L << from;
+                for (int[][] directions : new int[][][] {ROOK_DIRECTIONS, BISHOP_DIRECTIONS}) {
+                    if ((slidingAttacks(from, 0, directions) & toBit) != 0) {
+                        LINE[from][to] = (slidingAttacks(from, 0, directions) &
+                                slidingAttacks(to, 0, directions)) | fromBit | toBit;
+                        BETWEEN[from][to] = slidingAttacks(from, toBit, directions) &
+                                slidingAttacks(to, fromBit, directions);
+                    }
+                }
+            }
+        }
+    }
+
+    private Attacks() { }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0;
+        for (int[] step : steps) {
+            int col = BitBoard.column(square) + step[0];
+            int row = BitBoard.row(square) + step[1];
+            if (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                attacks |= 1L << BitBoard.square(row, col);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Fills one slider's attack table for one square by walking the rays for every
+     * arrangement of blockers on them and storing the result at the slot the square's
+     * magic number maps the arrangement to
+     */
+    private static void initMagic(int square, int[][] directions, long[] masks, long[] magics, int[] shifts,
+                                  long[][] tables) {
+        long mask = slidingAttacks(square, 0, directions) & ~edges(square);
+        int bits = Long.bitCount(mask);
+        long[] table = new long[1 << bits];
+        long subset = 0;
+        do {
+            int index = (int) ((subset * magics[square]) >>> (64 - bits));
+            long attacks = slidingAttacks(square, subset, directions);
+            if (table[index] != 0 && table[index] != attacks) {
+                throw new IllegalStateException("Magic number for square " + square + " has a collision");
+            }
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        tables[square] = table;
+    }
+
+    /**
+     * @return the board edges that do not contain the square; a slider's last square on a
+     * ray is attacked whether or not it is occupied, so blockers there never matter
+     */
+    private static long edges(int square) {
+        long fileA = 0x0101010101010101L;
+        long rows = (0xFFL | 0xFFL << 56) & ~(0xFFL << (8 * (BitBoard.row(square) - 1)));
+        long columns = (fileA | fileA << 7) & ~(fileA << (BitBoard.column(square) - 1));
+        return rows | columns;
+    }
+
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int col = BitBoard.column(square);
+            int row = BitBoard.row(square);
+            while (true) {
+                col += direction[0];
+                row += direction[1];
+                if (row < 1 || row > 8 || col < 1 || col > 8) {
+                    break;
+                }
+                long bit = 1L << BitBoard.square(row, col);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @param color the color of the pawn
+     * @param square the square the pawn is on
+     * @return the squares a pawn of the given color attacks from the square
+     */
+    public static long pawn(ChessGame.TeamColor color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * @param square   the square the rook is on
+     * @param occupied every occupied square on the board
+     * @return the squares a rook attacks, up to and including the first blocker in each direction
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK_ATTACKS[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>>
+                ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * @param square   the square the bishop is on
+     * @param occupied every occupied square on the board
+     * @return the squares a bishop attacks, up to and including the first blocker in each direction
+     */
+    public static long bishop(int square, long occupied) {
+        return BISHOP_ATTACKS[square][(int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>>
+                BISHOP_SHIFTS[square])];
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares that share a row, column or
+     * diagonal, or an empty set if they do not line up
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return every square on the full row, column or diagonal through both squares,
+     * or an empty set if they do not line up
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+}
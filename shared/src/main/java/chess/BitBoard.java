@@ -0,0 +1,302 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard representation of a chessboard: one 64-bit set per piece kind plus
+ * occupancy masks for each team and for the whole board.
+ * <p>
+ * Squares are numbered 0-63 starting at a1 (row 1, column 1) and moving along
+ * the row, so bit {@code (row - 1) * 8 + (column - 1)} is set when that square
+ * holds a piece of the given kind.
+ */
+public class BitBoard implements Cloneable {
+
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private long[] pieces = new long[12];
+    private long[] teams = new long[2];
+    private long occupied;
+    private byte[] mailbox = new byte[64];
+    private int[] kingSquares = {NO_SQUARE, NO_SQUARE};
+    private long key;
+    private int score;
+    private int phase;
+
+    public BitBoard() {
+        Arrays.fill(mailbox, (byte) NO_PIECE);
+    }
+
+    @Override
+    public BitBoard clone() {
+        try {
+            BitBoard clone = (BitBoard) super.clone();
+            clone.pieces = pieces.clone();
+            clone.teams = teams.clone();
+            clone.mailbox = mailbox.clone();
+            clone.kingSquares = kingSquares.clone();
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param position a position on the board
+     * @return the 0-63 square index of the position
+     */
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @param row    row of the square, 1-8
+     * @param column column of the square, 1-8
+     * @return the 0-63 square index of the row and column
+     */
+    public static int square(int row, int column) {
+        return ((row - 1) << 3) | (column - 1);
+    }
+
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return the index (0-11) of the bitboard holding pieces of the given color and type
+     */
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    public static ChessGame.TeamColor colorOf(int pieceIndex) {
+        return COLORS[pieceIndex / 6];
+    }
+
+    public static ChessPiece.PieceType typeOf(int pieceIndex) {
+        return TYPES[pieceIndex % 6];
+    }
+
+    /**
+     * Places a piece on a square, replacing whatever was there
+     *
+     * @param square     the square to update
+     * @param pieceIndex the piece to place, or {@link #NO_PIECE} to empty the square
+     */
+    public void set(int square, int pieceIndex) {
+        clear(square);
+        if (pieceIndex == NO_PIECE) {
+            return;
+        }
+        long bit = 1L << square;
+        pieces[pieceIndex] |= bit;
+        teams[pieceIndex / 6] |= bit;
+        occupied |= bit;
+        mailbox[square] = (byte) pieceIndex;
+        key ^= Zobrist.piece(pieceIndex, square);
+        score += PieceSquareTables.packed(pieceIndex, square);
+        phase += PieceSquareTables.phase(pieceIndex);
+        if (pieceIndex % 6 == ChessPiece.PieceType.KING.ordinal()) {
+            updateKingSquare(pieceIndex);
+        }
+    }
+
+    /**
+     * Removes any piece from a square
+     *
+     * @param square the square to empty
+     */
+    public void clear(int square) {
+        int pieceIndex = mailbox[square];
+        if (pieceIndex == NO_PIECE) {
+            return;
+        }
+        long mask = ~(1L << square);
+        pieces[pieceIndex] &= mask;
+        teams[pieceIndex / 6] &= mask;
+        occupied &= mask;
+        mailbox[square] = (byte) NO_PIECE;
+        key ^= Zobrist.piece(pieceIndex, square);
+        score -= PieceSquareTables.packed(pieceIndex, square);
+        phase -= PieceSquareTables.phase(pieceIndex);
+        if (pieceIndex % 6 == ChessPiece.PieceType.KING.ordinal()) {
+            updateKingSquare(pieceIndex);
+        }
+    }
+
+    /**
+     * Records where a team's king is. With several kings on the board (only possible in
+     * hand-built positions) the lowest square wins, matching a scan from a1 to h8.
+     */
+    private void updateKingSquare(int kingIndex) {
+        long kings = pieces[kingIndex];
+        kingSquares[kingIndex / 6] = kings == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(kings);
+    }
+
+    /**
+     * @return the piece index on the square, or {@link #NO_PIECE} if the square is empty
+     */
+    public int pieceAt(int square) {
+        return mailbox[square];
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color and type
+     */
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[pieceIndex(color, type)];
+    }
+
+    public long pieces(int pieceIndex) {
+        return pieces[pieceIndex];
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given team
+     */
+    public long team(ChessGame.TeamColor color) {
+        return teams[color.ordinal()];
+    }
+
+    /**
+     * @return the set of squares holding any piece
+     */
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board, kept up to date as pieces are
+     * placed and removed
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return the sum of the {@link PieceSquareTables} middlegame values of the pieces on
+     * the board, positive when white is ahead
+     */
+    public int middlegameScore() {
+        return PieceSquareTables.middlegame(score);
+    }
+
+    /**
+     * @return the sum of the {@link PieceSquareTables} endgame values of the pieces on the
+     * board, positive when white is ahead
+     */
+    public int endgameScore() {
+        return PieceSquareTables.endgame(score);
+    }
+
+    /**
+     * @return the game phase from the non-pawn material left, {@link PieceSquareTables#MAX_PHASE}
+     * with a full set of pieces down to 0 with only kings and pawns; promotions can push it higher
+     */
+    public int phase() {
+        return phase;
+    }
+
+    /**
+     * @return the square of the team's king, or {@link #NO_SQUARE} if it has none
+     */
+    public int kingSquare(ChessGame.TeamColor color) {
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * Finds every piece, of either team, attacking a square
+     *
+     * @param square   the square being attacked
+     * @param occupied the occupancy to use for sliding pieces, normally {@link #occupied()}
+     * @return the set of squares holding pieces that attack the square
+     */
+    public long attackersTo(int square, long occupied) {
+        long diagonalSliders = pieces[ChessPiece.PieceType.BISHOP.ordinal()] |
+                pieces[ChessPiece.PieceType.QUEEN.ordinal()] |
+                pieces[6 + ChessPiece.PieceType.BISHOP.ordinal()] |
+                pieces[6 + ChessPiece.PieceType.QUEEN.ordinal()];
+        long straightSliders = pieces[ChessPiece.PieceType.ROOK.ordinal()] |
+                pieces[ChessPiece.PieceType.QUEEN.ordinal()] |
+                pieces[6 + ChessPiece.PieceType.ROOK.ordinal()] |
+                pieces[6 + ChessPiece.PieceType.QUEEN.ordinal()];
+        return (Attacks.pawn(ChessGame.TeamColor.BLACK, square) &
+                        pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN)) |
+                (Attacks.pawn(ChessGame.TeamColor.WHITE, square) &
+                        pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN)) |
+                (Attacks.knight(square) & (pieces[ChessPiece.PieceType.KNIGHT.ordinal()] |
+                        pieces[6 + ChessPiece.PieceType.KNIGHT.ordinal()])) |
+                (Attacks.king(square) & (pieces[ChessPiece.PieceType.KING.ordinal()] |
+                        pieces[6 + ChessPiece.PieceType.KING.ordinal()])) |
+                (Attacks.bishop(square, occupied) & diagonalSliders) |
+                (Attacks.rook(square, occupied) & straightSliders);
+    }
+
+    /**
+     * Determines whether a team attacks a square, working outward from the square
+     * with knight, king, pawn and ray lookups rather than generating the team's moves
+     *
+     * @param square   the square being attacked
+     * @param attacker the team doing the attacking
+     * @return true if any piece of the attacking team attacks the square
+     */
+    public boolean isAttacked(int square, ChessGame.TeamColor attacker) {
+        return isAttacked(square, attacker, occupied);
+    }
+
+    /**
+     * Determines whether a team attacks a square, treating only the given squares as
+     * blockers for sliding pieces
+     *
+     * @param square   the square being attacked
+     * @param attacker the team doing the attacking
+     * @param occupied the squares that block sliding pieces
+     * @return true if any piece of the attacking team attacks the square
+     */
+    public boolean isAttacked(int square, ChessGame.TeamColor attacker, long occupied) {
+        int base = attacker.ordinal() * 6;
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE ?
+                ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if ((Attacks.knight(square) & pieces[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0 ||
+                (Attacks.pawn(defender, square) & pieces[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0 ||
+                (Attacks.king(square) & pieces[base + ChessPiece.PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = pieces[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long diagonalSliders = pieces[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens;
+        if (diagonalSliders != 0 && (Attacks.bishop(square, occupied) & diagonalSliders) != 0) {
+            return true;
+        }
+        long straightSliders = pieces[base + ChessPiece.PieceType.ROOK.ordinal()] | queens;
+        return straightSliders != 0 && (Attacks.rook(square, occupied) & straightSliders) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BitBoard that = (BitBoard) o;
+        return Arrays.equals(pieces, that.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        return "BitBoard{" +
+                "pieces=" + Arrays.toString(pieces) +
+                '}';
+    }
+}
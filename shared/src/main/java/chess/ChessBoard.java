@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -13,22 +12,23 @@ public class ChessBoard implements Cloneable {
 
     ChessPiece[][] squares = new ChessPiece[8][8];
 
+    /**
+     * Bitboard mirror of {@code squares}. Built lazily so that boards created by
+     * deserialization, which only restores {@code squares}, pick it up on first use.
+     */
+    private transient BitBoard bitBoard;
+
     public ChessBoard() { }
 
     @Override
     public ChessBoard clone() {
         try {
             ChessBoard clone = (ChessBoard) super.clone();
-            clone.squares = new ChessPiece[8][8];
+            clone.squares = new ChessPiece[8][];
             for (int i = 0; i < 8; i++) {
-                for (int j = 0; j < 8; j++) {
-                    if (this.squares[i][j] == null) {
-                        clone.squares[i][j] = null;
-                    } else {
-                        clone.squares[i][j] = this.squares[i][j].clone();
-                    }
-                }
+                clone.squares[i] = this.squares[i].clone();
             }
+            clone.bitBoard = bitBoard == null ? null : bitBoard.clone();
             return clone;
         } catch (CloneNotSupportedException e) {
             throw new RuntimeException(e);
@@ -44,6 +44,23 @@ public class ChessBoard implements Cloneable {
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
         squares[8 - position.getRow()][position.getColumn() - 1] = piece;
+        if (bitBoard != null) {
+            bitBoard.set(BitBoard.square(position), piece == null ? BitBoard.NO_PIECE :
+                    BitBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+        }
+    }
+
+    /**
+     * Places a piece on a square given by its bitboard index, keeping the piece array
+     * and the bitboards in sync. Used by the move making code, which works in indexes.
+     *
+     * @param square     the 0-63 square to update
+     * @param pieceIndex the 0-11 piece to place, or {@link BitBoard#NO_PIECE} to empty the square
+     */
+    void setSquare(int square, int pieceIndex) {
+        squares[8 - BitBoard.row(square)][BitBoard.column(square) - 1] =
+                pieceIndex == BitBoard.NO_PIECE ? null : ChessPiece.ofIndex(pieceIndex);
+        getBitBoard().set(square, pieceIndex);
     }
 
     /**
@@ -61,6 +78,42 @@ public class ChessBoard implements Cloneable {
         return squares;
     }
 
+    /**
+     * Gets the bitboard view of this board, which is kept in sync by {@link #addPiece}
+     *
+     * @return the bitboards for the pieces currently on the board
+     */
+    public BitBoard getBitBoard() {
+        if (bitBoard == null) {
+            BitBoard built = new BitBoard();
+            for (int i = 0; i < 8; i++) {
+                for (int j = 0; j < 8; j++) {
+                    ChessPiece piece = squares[i][j];
+                    if (piece != null) {
+                        built.set(BitBoard.square(8 - i, j + 1),
+                                BitBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+                    }
+                }
+            }
+            bitBoard = built;
+        }
+        return bitBoard;
+    }
+
+    /**
+     * Gets where a team's king is without scanning the board
+     *
+     * @param color the team whose king to find
+     * @return the position of the team's king, or null if it has no king on the board
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        int square = getBitBoard().kingSquare(color);
+        if (square == BitBoard.NO_SQUARE) {
+            return null;
+        }
+        return ChessPosition.ofSquare(square);
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -70,7 +123,7 @@ public class ChessBoard implements Cloneable {
         ChessGame.TeamColor color;
         for (int i = 1; i < 9; i++) {
             for (int j = 1; j < 9; j++) {
-                ChessPosition position = new ChessPosition(i, j);
+                ChessPosition position = ChessPosition.of(i, j);
                 color = i <= 2 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
                 if (i >= 3 && i <= 6) {
                     addPiece(position, null);
@@ -88,7 +141,7 @@ public class ChessBoard implements Cloneable {
                 } else {
                     type = ChessPiece.PieceType.KING;
                 }
-                addPiece(position, new ChessPiece(color, type));
+                addPiece(position, ChessPiece.of(color, type));
             }
         }
     }
@@ -99,12 +152,20 @@ public class ChessBoard implements Cloneable {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        return getBitBoard().equals(that.getBitBoard());
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on this board, which is updated with each
+     * change instead of being recomputed
+     */
+    public long getZobristKey() {
+        return getBitBoard().key();
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
 
     @Override
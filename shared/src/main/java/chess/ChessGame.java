@@ -1,6 +1,9 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -9,17 +12,354 @@ import java.util.Collection;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(KeyHistoryAdapterFactory.class)
 public class ChessGame {
 
+    /**
+     * Castling rights, as bits of the set returned by {@link #getCastlingRights()}
+     */
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    /**
+     * The castling rights that survive a move from or to each square: moving a king or
+     * rook off its home square, or capturing a rook on it, loses the matching rights
+     */
+    private static final int[] CASTLING_MASKS = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASKS, ALL_CASTLING);
+        CASTLING_MASKS[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASKS[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASKS[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASKS[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASKS[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASKS[63] &= ~BLACK_KINGSIDE;
+    }
+
+    /**
+     * How many position keys the history ring holds. Only positions since the last
+     * capture or pawn move can repeat, and a game with more than 100 of those is already
+     * drawn by the fifty-move rule, so older keys are never needed.
+     */
+    private static final int HISTORY_SIZE = 128;
+
+    /**
+     * FEN letters of the white pieces, indexed by piece type
+     */
+    private static final String FEN_PIECES = "KQBNRP";
+
+    /**
+     * The first and last rows, where no pawn can stand
+     */
+    private static final long BACK_ROWS = 0xFF000000000000FFL;
+
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
     private ChessBoard board;
     private TeamColor teamTurn;
     private boolean gameOver;
+    private int castlingRights;
+    private int enPassantSquare = BitBoard.NO_SQUARE;
+
+    /**
+     * Plies played since the last capture or pawn move
+     */
+    private int halfmoveClock;
+
+    /**
+     * The number of the move being played, starting at 1 and going up after each black move
+     */
+    private int fullmoveNumber = 1;
+
+    /**
+     * The keys of the positions before each move played, in a ring indexed by
+     * historyLength, so repetitions can be found by scanning back over the keys alone.
+     * Only the keys that can still repeat are serialized, by {@link KeyHistoryAdapterFactory}.
+     */
+    private long[] keyHistory = new long[HISTORY_SIZE];
+    private int historyLength;
+
+    /**
+     * Moves played with doMove and the state they replaced (captured piece, turn,
+     * castling rights, en passant square and halfmove clock), so they can be taken back
+     * without allocating
+     */
+    private transient int[] undoMoves = new int[64];
+    private transient long[] undoStates = new long[64];
+    private transient int undoCount;
+
+    /**
+     * The status of each team in the position with the matching key in statusKeys.
+     * Cleared by makeMove and setBoard; the key check also catches moves played with
+     * doMove and pieces placed on the board directly.
+     */
+    private transient GameStatus[] statuses = new GameStatus[2];
+    private transient long[] statusKeys = new long[2];
+
+    /**
+     * The legal moves of the side to move in the position with key sanKey, so reading
+     * and writing moves in SAN generates them once per position rather than once per move
+     */
+    private transient MoveList sanMoves;
+    private transient MoveList sanReplies;
+    private transient long sanKey;
+    private transient boolean sanMovesValid;
 
     public ChessGame() {
         board = new ChessBoard();
         board.resetBoard();
         teamTurn = TeamColor.WHITE;
         gameOver = false;
+        castlingRights = ALL_CASTLING;
+    }
+
+    /**
+     * Creates an independent copy of a game in its current position, so it can be
+     * searched or analysed without touching the original
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        board = other.board.clone();
+        teamTurn = other.teamTurn;
+        gameOver = other.gameOver;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        keyHistory = other.keyHistory.clone();
+        historyLength = other.historyLength;
+    }
+
+    private ChessGame(ChessBoard board) {
+        this.board = board;
+    }
+
+    /**
+     * Sets up a game from a position in Forsyth-Edwards Notation: the piece placement,
+     * side to move, castling rights, en passant square, halfmove clock and move number.
+     * The two clocks may be left off, in which case they start at 0 and 1. The string is
+     * read in one pass straight onto the board, without splitting it up.
+     * <p>
+     * An en passant square is only kept if a pawn can actually capture there, matching
+     * the positions {@link #getPositionKey()} sees in play, so {@link #toFen()} may leave
+     * out an en passant square the string had.
+     *
+     * @param fen the position to load
+     * @return a new game in that position, with no moves to take back or repeat
+     * @throws IllegalArgumentException if the string is not a valid FEN position, or the
+     * position cannot come up in a game: each side needs exactly one king, no pawn may
+     * stand on the first or last row, and the side that just moved cannot be in check
+     */
+    public static ChessGame fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        int index = 0;
+        int row = 8;
+        int column = 1;
+        while (true) {
+            char c = charAt(fen, index++);
+            if (c == ' ') {
+                break;
+            } else if (c == '/') {
+                if (column != 9 || row == 1) {
+                    throw invalidFen(fen, "row " + row + " does not have eight squares");
+                }
+                row--;
+                column = 1;
+            } else if (c >= '1' && c <= '8') {
+                column += c - '0';
+            } else {
+                int type = FEN_PIECES.indexOf(Character.toUpperCase(c));
+                if (type < 0) {
+                    throw invalidFen(fen, "unknown piece '" + c + "'");
+                } else if (column > 8) {
+                    throw invalidFen(fen, "row " + row + " does not have eight squares");
+                }
+                board.setSquare(BitBoard.square(row, column), (Character.isLowerCase(c) ? 6 : 0) + type);
+                column++;
+            }
+            if (column > 9) {
+                throw invalidFen(fen, "row " + row + " does not have eight squares");
+            }
+        }
+        if (row != 1 || column != 9) {
+            throw invalidFen(fen, "the board does not have eight full rows");
+        }
+        BitBoard placed = board.getBitBoard();
+        for (TeamColor color : TeamColor.values()) {
+            String side = color == TeamColor.WHITE ? "white" : "black";
+            if (Long.bitCount(placed.pieces(color, ChessPiece.PieceType.KING)) != 1) {
+                throw invalidFen(fen, side + " does not have exactly one king");
+            }
+            if ((placed.pieces(color, ChessPiece.PieceType.PAWN) & BACK_ROWS) != 0) {
+                throw invalidFen(fen, side + " has a pawn on the first or last row");
+            }
+        }
+
+        ChessGame game = new ChessGame(board);
+        char turn = charAt(fen, index++);
+        if (turn != 'w' && turn != 'b') {
+            throw invalidFen(fen, "unknown side to move '" + turn + "'");
+        }
+        game.teamTurn = turn == 'w' ? TeamColor.WHITE : TeamColor.BLACK;
+        if (game.isInCheck(turn == 'w' ? TeamColor.BLACK : TeamColor.WHITE)) {
+            throw invalidFen(fen, "the side that just moved is in check");
+        }
+        index = expectSpace(fen, index);
+
+        if (charAt(fen, index) == '-') {
+            index++;
+        } else {
+            for (char c; index < fen.length() && (c = fen.charAt(index)) != ' '; index++) {
+                int right = switch (c) {
+                    case 'K' -> WHITE_KINGSIDE;
+                    case 'Q' -> WHITE_QUEENSIDE;
+                    case 'k' -> BLACK_KINGSIDE;
+                    case 'q' -> BLACK_QUEENSIDE;
+                    default -> throw invalidFen(fen, "unknown castling right '" + c + "'");
+                };
+                game.castlingRights |= right;
+            }
+        }
+        index = expectSpace(fen, index);
+
+        if (charAt(fen, index) == '-') {
+            index++;
+        } else {
+            int passedColumn = charAt(fen, index++) - 'a' + 1;
+            int passedRow = charAt(fen, index++) - '0';
+            if (passedColumn < 1 || passedColumn > 8 || passedRow != (game.teamTurn == TeamColor.WHITE ? 6 : 3)) {
+                throw invalidFen(fen, "invalid en passant square");
+            }
+            int passed = BitBoard.square(passedRow, passedColumn);
+            TeamColor capturer = game.teamTurn;
+            TeamColor mover = capturer == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+            BitBoard bitBoard = board.getBitBoard();
+            if ((Attacks.pawn(mover, passed) & bitBoard.pieces(capturer, ChessPiece.PieceType.PAWN)) != 0) {
+                game.enPassantSquare = passed;
+            }
+        }
+
+        if (index < fen.length()) {
+            index = expectSpace(fen, index);
+            int end = fieldEnd(fen, index);
+            game.halfmoveClock = parseNumber(fen, index, end);
+            index = end;
+            if (index < fen.length()) {
+                index = expectSpace(fen, index);
+                end = fieldEnd(fen, index);
+                game.fullmoveNumber = parseNumber(fen, index, end);
+                if (game.fullmoveNumber < 1) {
+                    throw invalidFen(fen, "the move number has to be at least 1");
+                }
+                index = end;
+            }
+        }
+        if (index != fen.length()) {
+            throw invalidFen(fen, "unexpected text after the position");
+        }
+        return game;
+    }
+
+    /**
+     * Writes the current position in Forsyth-Edwards Notation, with the castling rights
+     * that are still held and the en passant square only if a capture there is possible
+     *
+     * @return the position as a FEN string
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        BitBoard bitBoard = board.getBitBoard();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int column = 1; column <= 8; column++) {
+                int piece = bitBoard.pieceAt(BitBoard.square(row, column));
+                if (piece == BitBoard.NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = FEN_PIECES.charAt(piece % 6);
+                fen.append(piece < 6 ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+        fen.append(teamTurn == TeamColor.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            appendIf(fen, castlingRights, WHITE_KINGSIDE, 'K');
+            appendIf(fen, castlingRights, WHITE_QUEENSIDE, 'Q');
+            appendIf(fen, castlingRights, BLACK_KINGSIDE, 'k');
+            appendIf(fen, castlingRights, BLACK_QUEENSIDE, 'q');
+        }
+        fen.append(' ');
+        if (enPassantSquare == BitBoard.NO_SQUARE) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + BitBoard.column(enPassantSquare) - 1)).append(BitBoard.row(enPassantSquare));
+        }
+        return fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber).toString();
+    }
+
+    private static void appendIf(StringBuilder fen, int rights, int right, char letter) {
+        if ((rights & right) != 0) {
+            fen.append(letter);
+        }
+    }
+
+    private static char charAt(String fen, int index) {
+        if (index >= fen.length()) {
+            throw invalidFen(fen, "it ends too early");
+        }
+        return fen.charAt(index);
+    }
+
+    private static int expectSpace(String fen, int index) {
+        if (charAt(fen, index) != ' ') {
+            throw invalidFen(fen, "expected a space at character " + (index + 1));
+        }
+        return index + 1;
+    }
+
+    private static int fieldEnd(String fen, int index) {
+        int end = index;
+        while (end < fen.length() && fen.charAt(end) != ' ') {
+            end++;
+        }
+        return end;
+    }
+
+    private static int parseNumber(String fen, int start, int end) {
+        if (start == end || end - start > 6) {
+            throw invalidFen(fen, "invalid move counter");
+        }
+        int number = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9') {
+                throw invalidFen(fen, "invalid move counter");
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private static IllegalArgumentException invalidFen(String fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN, " + reason + ": " + fen);
     }
 
     /**
@@ -38,6 +378,164 @@ public class ChessGame {
         teamTurn = team;
     }
 
+    /**
+     * @return the castling rights both teams still have, as a set of the
+     * {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE} and
+     * {@link #BLACK_QUEENSIDE} bits
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Sets the castling rights, such as when loading a position. A right is only used if
+     * the king and rook are also on their home squares.
+     *
+     * @param castlingRights a set of castling right bits
+     */
+    public void setCastlingRights(int castlingRights) {
+        if ((castlingRights & ~ALL_CASTLING) != 0) {
+            throw new IllegalArgumentException("Invalid castling rights: " + castlingRights);
+        }
+        this.castlingRights = castlingRights;
+        clearStatus();
+    }
+
+    /**
+     * @return the 0-63 square a pawn that just moved two squares passed over, if an enemy
+     * pawn is in place to capture it en passant, otherwise {@link BitBoard#NO_SQUARE}
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * Sets the square a pawn can be captured en passant on, such as when loading a position
+     *
+     * @param enPassantSquare the 0-63 square on row 3 or 6, or {@link BitBoard#NO_SQUARE}
+     */
+    public void setEnPassantSquare(int enPassantSquare) {
+        if (enPassantSquare != BitBoard.NO_SQUARE && BitBoard.row(enPassantSquare) != 3 &&
+                BitBoard.row(enPassantSquare) != 6) {
+            throw new IllegalArgumentException("Invalid en passant square: " + enPassantSquare);
+        }
+        this.enPassantSquare = enPassantSquare;
+        clearStatus();
+    }
+
+    /**
+     * @return the number of plies played since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Sets the halfmove clock, such as when loading a position
+     *
+     * @param halfmoveClock the number of plies since the last capture or pawn move
+     */
+    public void setHalfmoveClock(int halfmoveClock) {
+        if (halfmoveClock < 0) {
+            throw new IllegalArgumentException("Halfmove clock cannot be negative: " + halfmoveClock);
+        }
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * @return the number of the move being played, which starts at 1 and goes up after
+     * each of black's moves
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Sets the move number, such as when loading a position
+     *
+     * @param fullmoveNumber the number of the move being played, at least 1
+     */
+    public void setFullmoveNumber(int fullmoveNumber) {
+        if (fullmoveNumber < 1) {
+            throw new IllegalArgumentException("Move number has to be at least 1: " + fullmoveNumber);
+        }
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Counts how many times the current position, with the same side to move, has come up
+     * before in this game. Only the positions since the last capture or pawn move are
+     * looked at, since no earlier one can match, and of those only the last
+     * {@value #HISTORY_SIZE} plies are kept.
+     *
+     * @return the number of earlier occurrences of the position
+     */
+    public int repetitions() {
+        long key = getPositionKey();
+        int limit = Math.min(Math.min(halfmoveClock, historyLength), HISTORY_SIZE);
+        int count = 0;
+        // A position cannot come back after two plies, since each side has moved a piece
+        for (int back = 4; back <= limit; back += 2) {
+            if (keyHistory[(historyLength - back) & (HISTORY_SIZE - 1)] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the keys {@link #repetitions()} can still match, oldest first
+     */
+    long[] liveKeys() {
+        int count = Math.min(Math.min(halfmoveClock, historyLength), HISTORY_SIZE);
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = keyHistory[(historyLength - count + i) & (HISTORY_SIZE - 1)];
+        }
+        return keys;
+    }
+
+    /**
+     * Replaces the key history with keys saved by {@link #liveKeys()}
+     */
+    void restoreKeys(long[] keys) {
+        int count = Math.min(keys.length, HISTORY_SIZE);
+        System.arraycopy(keys, keys.length - count, keyHistory, 0, count);
+        historyLength = count;
+    }
+
+    /**
+     * @return true if the current position has now come up three times
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitions() >= 2;
+    }
+
+    /**
+     * @return true if fifty moves by each side have gone by without a capture or pawn move
+     */
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Gets the Zobrist key of the current position: the pieces on the board, the side to
+     * move, the castling rights and the en passant square. It costs a few XORs since the
+     * board keeps its part up to date as moves are made.
+     *
+     * @return a 64-bit key identifying the position
+     */
+    public long getPositionKey() {
+        long key = board.getZobristKey() ^ Zobrist.castling(castlingRights);
+        if (teamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.blackToMove();
+        }
+        if (enPassantSquare != BitBoard.NO_SQUARE) {
+            key ^= Zobrist.enPassant(BitBoard.column(enPassantSquare));
+        }
+        return key;
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -55,17 +553,26 @@ public class ChessGame {
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         ChessPiece piece = board.getPiece(startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
+        Collection<ChessMove> moves = new ArrayList<>();
         if (piece == null) {
-            return validMoves;
+            return moves;
         }
-        Collection<ChessMove> moves = piece.pieceMoves(board, startPosition);
-        for (ChessMove move : moves) {
-            if (isMoveValid(move)) {
-                validMoves.add(move);
+        for (ChessMove move : getStatus(piece.getTeamColor()).legalMoves()) {
+            if (move.getStartPosition().equals(startPosition)) {
+                moves.add(move);
             }
         }
-        return validMoves;
+        return moves;
+    }
+
+    /**
+     * Gets every valid move for a team, whether or not it is that team's turn
+     *
+     * @param teamColor the team to get valid moves for
+     * @return Set of valid moves for every piece of the team
+     */
+    public Collection<ChessMove> legalMoves(TeamColor teamColor) {
+        return MoveGenerator.legalMoves(this, teamColor);
     }
 
     /**
@@ -74,33 +581,236 @@ public class ChessGame {
      * @return boolean indicating if the move is valid
      */
     public boolean isMoveValid(ChessMove move) {
-        TeamColor moveColor = board.getPiece(move.getStartPosition()).getTeamColor();
-        ChessGame simulatedGame = new ChessGame();
-        simulatedGame.setBoard(board);
-        if (simulatedGame.simulateMove(move)) {
-            return (!simulatedGame.isInCheck(moveColor));
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        return piece != null && getStatus(piece.getTeamColor()).legalMoves().contains(move);
+    }
+
+    /**
+     * Gets the status of the team whose turn it is
+     *
+     * @return the check, checkmate and stalemate state and legal moves of the side to move
+     */
+    public GameStatus getStatus() {
+        return getStatus(teamTurn);
+    }
+
+    /**
+     * Gets a team's status in the current position. It is worked out with one legal move
+     * sweep the first time it is asked for and shared by every query after that until
+     * the position changes.
+     *
+     * @param teamColor the team to get the status of
+     * @return the check, checkmate and stalemate state and legal moves of the team
+     */
+    public GameStatus getStatus(TeamColor teamColor) {
+        if (statuses == null) {
+            statuses = new GameStatus[2];
+            statusKeys = new long[2];
+        }
+        long key = getPositionKey();
+        int index = teamColor.ordinal();
+        GameStatus status = statuses[index];
+        if (status == null || statusKeys[index] != key) {
+            status = new GameStatus(teamColor, isInCheck(teamColor), legalMoves(teamColor));
+            statuses[index] = status;
+            statusKeys[index] = key;
         }
-        return false;
+        return status;
+    }
+
+    private void clearStatus() {
+        if (statuses != null) {
+            Arrays.fill(statuses, null);
+        }
+        sanMovesValid = false;
     }
 
     /**
+     * Reads a move of the side to move written in Standard Algebraic Notation, such as
+     * {@code e4}, {@code Nbd7} or {@code exd8=Q+}. Check and annotation marks are ignored,
+     * and castling may be written with zeros.
      *
-     * @param move the move to simulate on the game's board
-     * @return boolean indicating whether the piece was successfully moved
+     * @param san the move
+     * @return the legal move it stands for
+     * @throws InvalidMoveException if it is not a legal move here, or could be more than one
      */
-    public boolean simulateMove(ChessMove move) {
-        ChessPosition startPosition = move.getStartPosition();
-        ChessPosition endPosition = move.getEndPosition();
-        ChessPiece piece = board.getPiece(startPosition);
-        if (piece.inRange(endPosition)) {
-            if (board.getPiece(endPosition) == null ||
-                    board.getPiece(endPosition).getTeamColor() != piece.getTeamColor()) {
-                board.addPiece(endPosition, piece);
-                board.addPiece(startPosition, null);
-                return true;
+    public ChessMove parseSan(String san) throws InvalidMoveException {
+        return Move.toChessMove(parseSan(san, 0, san.length()));
+    }
+
+    /**
+     * Reads a move in SAN from part of a longer text, such as a PGN file, without copying it
+     *
+     * @param text  the text holding the move
+     * @param start the index of the move's first character
+     * @param end   the index after the move's last character
+     * @return the move, encoded with {@link Move}
+     * @throws InvalidMoveException if it is not a legal move here, or could be more than one
+     */
+    public int parseSan(CharSequence text, int start, int end) throws InvalidMoveException {
+        return San.parse(board.getBitBoard(), text, start, end, sanMoves());
+    }
+
+    /**
+     * Writes a legal move of the side to move in Standard Algebraic Notation, naming as
+     * much of its start square as it takes to tell it apart from the same kind of piece's
+     * other moves, and marking check and mate
+     *
+     * @param move the move to write
+     * @return the move in SAN
+     * @throws IllegalArgumentException if the move is not legal here
+     */
+    public String toSan(ChessMove move) {
+        return toSan(Move.fromChessMove(move));
+    }
+
+    /**
+     * @param move a legal move of the side to move, encoded with {@link Move}
+     * @return the move in SAN
+     * @throws IllegalArgumentException if the move is not legal here
+     */
+    public String toSan(int move) {
+        return San.format(this, move, sanMoves(), sanReplies);
+    }
+
+    private MoveList sanMoves() {
+        long key = getPositionKey();
+        if (sanMoves == null) {
+            sanMoves = new MoveList();
+            sanReplies = new MoveList();
+        } else if (sanMovesValid && sanKey == key) {
+            return sanMoves;
+        }
+        MoveGenerator.generate(this, teamTurn, sanMoves);
+        sanKey = key;
+        sanMovesValid = true;
+        return sanMoves;
+    }
+
+    /**
+     * Fills a move list with every legal move a team has, without allocating
+     *
+     * @param teamColor the team to get valid moves for
+     * @param moves     the list to fill; it is cleared first
+     */
+    public void legalMoves(TeamColor teamColor, MoveList moves) {
+        MoveGenerator.generate(this, teamColor, moves);
+    }
+
+    /**
+     * Plays a move on this game's board in place, without checking that it is legal.
+     * Like {@link #doMove(int)}, it can be taken back with {@link #undoMove()}.
+     *
+     * @param move the move to play
+     */
+    public void doMove(ChessMove move) {
+        doMove(Move.fromChessMove(move));
+    }
+
+    /**
+     * Plays an encoded move on this game's board in place, without checking that it is
+     * legal or allocating. What is needed to take it back is kept on an internal stack.
+     *
+     * @param move the move to play, encoded with {@link Move}
+     */
+    public void doMove(int move) {
+        BitBoard bitBoard = board.getBitBoard();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = bitBoard.pieceAt(from);
+        int captured = bitBoard.pieceAt(to);
+        pushUndo(move, (captured + 1) | ((long) teamTurn.ordinal() << 4) | ((long) castlingRights << 5) |
+                ((long) (enPassantSquare + 1) << 9) | ((long) halfmoveClock << 16));
+        keyHistory[historyLength & (HISTORY_SIZE - 1)] = getPositionKey();
+        historyLength++;
+
+        TeamColor color = BitBoard.colorOf(piece);
+        TeamColor enemy = color == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        int type = piece % 6;
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        board.setSquare(to, promotion == null ? piece : BitBoard.pieceIndex(color, promotion));
+        board.setSquare(from, BitBoard.NO_PIECE);
+        if (type == PAWN && to == enPassantSquare) {
+            board.setSquare(to + (color == TeamColor.WHITE ? -8 : 8), BitBoard.NO_PIECE);
+        } else if (type == KING && (to - from == 2 || from - to == 2)) {
+            moveCastlingRook(to, false);
+        }
+
+        halfmoveClock = type == PAWN || captured != BitBoard.NO_PIECE ? 0 : halfmoveClock + 1;
+        castlingRights &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        enPassantSquare = BitBoard.NO_SQUARE;
+        if (type == PAWN && (to - from == 16 || from - to == 16)) {
+            int passed = (from + to) >>> 1;
+            if ((Attacks.pawn(color, passed) & bitBoard.pieces(enemy, ChessPiece.PieceType.PAWN)) != 0) {
+                enPassantSquare = passed;
             }
         }
-        return false;
+        if (color == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        teamTurn = enemy;
+    }
+
+    /**
+     * Takes back the last move played with {@link #doMove(int)} or
+     * {@link #doMove(ChessMove)}. Moves are taken back in the reverse order they were played.
+     */
+    public void undoMove() {
+        undoCount--;
+        int move = undoMoves[undoCount];
+        long state = undoStates[undoCount];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = board.getBitBoard().pieceAt(to);
+        if (Move.isPromotion(move)) {
+            piece = BitBoard.pieceIndex(BitBoard.colorOf(piece), ChessPiece.PieceType.PAWN);
+        }
+        int captured = (int) (state & 0xF) - 1;
+        board.setSquare(from, piece);
+        board.setSquare(to, captured);
+        teamTurn = (state & (1 << 4)) == 0 ? TeamColor.WHITE : TeamColor.BLACK;
+        castlingRights = (int) (state >>> 5) & ALL_CASTLING;
+        enPassantSquare = (int) ((state >>> 9) & 0x7F) - 1;
+        halfmoveClock = (int) (state >>> 16);
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        historyLength--;
+
+        int type = piece % 6;
+        if (type == PAWN && to == enPassantSquare) {
+            TeamColor enemy = teamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+            board.setSquare(to + (teamTurn == TeamColor.WHITE ? -8 : 8),
+                    BitBoard.pieceIndex(enemy, ChessPiece.PieceType.PAWN));
+        } else if (type == KING && (to - from == 2 || from - to == 2)) {
+            moveCastlingRook(to, true);
+        }
+    }
+
+    /**
+     * Moves the rook that castles along with a king, or puts it back in the corner
+     *
+     * @param kingTo the square the king castled to
+     * @param undo   whether the castling is being taken back
+     */
+    private void moveCastlingRook(int kingTo, boolean undo) {
+        boolean kingside = BitBoard.column(kingTo) == 7;
+        int corner = kingside ? kingTo + 1 : kingTo - 2;
+        int beside = kingside ? kingTo - 1 : kingTo + 1;
+        int rookFrom = undo ? beside : corner;
+        int rookTo = undo ? corner : beside;
+        board.setSquare(rookTo, board.getBitBoard().pieceAt(rookFrom));
+        board.setSquare(rookFrom, BitBoard.NO_PIECE);
+    }
+
+    private void pushUndo(int move, long state) {
+        if (undoCount == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoCount * 2);
+            undoStates = Arrays.copyOf(undoStates, undoCount * 2);
+        }
+        undoMoves[undoCount] = move;
+        undoStates[undoCount] = state;
+        undoCount++;
     }
 
     /**
@@ -110,24 +820,15 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        ChessPosition startPosition = move.getStartPosition();
-        ChessPosition endPosition = move.getEndPosition();
-        Collection<ChessMove> validMoves = validMoves(startPosition);
-        ChessPiece piece = board.getPiece(startPosition);
-        if (validMoves.contains(move) && piece != null && piece.pieceColor == teamTurn) {
-            int promotionRow = piece.getTeamColor() == TeamColor.BLACK ? 1 : 8;
-            if (piece.getPieceType() == ChessPiece.PieceType.PAWN && endPosition.getRow() == promotionRow) {
-                board.addPiece(endPosition, new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
-            } else {
-                board.addPiece(endPosition, piece);
-            }
-            board.addPiece(startPosition, null);
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        if (piece != null && piece.pieceColor == teamTurn && getStatus().legalMoves().contains(move)) {
+            doMove(Move.fromChessMove(move));
+            clearStatus();
         } else if (piece != null && piece.pieceColor != teamTurn) {
             throw new InvalidMoveException("Team " + piece.pieceColor + " cannot move on " + teamTurn + "'s turn.");
         } else {
             throw new InvalidMoveException("Not a valid move.");
         }
-        setTeamTurn(getTeamTurn() == TeamColor.BLACK ? TeamColor.WHITE : TeamColor.BLACK);
     }
 
     /**
@@ -137,59 +838,11 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = getKingPosition(teamColor);
-        if (kingPosition == null) { return false; }
-        for (int i = 1; i < 9; i++) {
-            for (int j = 1; j < 9; j++) {
-                ChessPosition currPosition = new ChessPosition(i, j);
-                ChessPiece currPiece = board.getPiece(currPosition);
-                if (currPiece == null || currPiece.getTeamColor() == teamColor) { continue; }
-                Collection<ChessMove> currPieceMoves = currPiece.pieceMoves(board, currPosition);
-                for (ChessMove move : currPieceMoves) {
-                    if (move.getEndPosition().equals(kingPosition)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     *
-     * @param teamColor the color of the team's king to locate
-     * @return ChessPosition of the team's king if it's on the board; null otherwise
-     */
-    private ChessPosition getKingPosition(TeamColor teamColor) {
-        for (int i = 1; i < 9; i++) {
-            for (int j = 1; j < 9; j++) {
-                ChessPiece piece = board.getPiece(new ChessPosition(i, j));
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING &&
-                        piece.pieceColor == teamColor) {
-                    return new ChessPosition(i, j);
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     *
-     * @param teamColor which team to check for any valid moves
-     * @return boolean indicating whether the team has any valid moves
-     */
-    private boolean teamHasNoValidMoves(TeamColor teamColor) {
-        for (int i = 1; i < 9; i++) {
-            for (int j = 1; j < 9; j++) {
-                ChessPosition currPosition = new ChessPosition(i, j);
-                ChessPiece currPiece = board.getPiece(currPosition);
-                if (currPiece != null && currPiece.getTeamColor() == teamColor &&
-                        !validMoves(currPosition).isEmpty()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        BitBoard bitBoard = board.getBitBoard();
+        int kingSquare = bitBoard.kingSquare(teamColor);
+        if (kingSquare == BitBoard.NO_SQUARE) { return false; }
+        TeamColor enemyColor = teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        return bitBoard.isAttacked(kingSquare, enemyColor);
     }
 
     /**
@@ -199,7 +852,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        return (teamHasNoValidMoves(teamColor) && isInCheck(teamColor));
+        return getStatus(teamColor).isCheckmate();
     }
 
     /**
@@ -210,7 +863,7 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        return (teamHasNoValidMoves(teamColor) && !isInCheck(teamColor));
+        return getStatus(teamColor).isStalemate();
     }
 
     /**
@@ -220,6 +873,34 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board.clone();
+        undoCount = 0;
+        castlingRights = homeCastlingRights(this.board.getBitBoard());
+        enPassantSquare = BitBoard.NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        historyLength = 0;
+        clearStatus();
+    }
+
+    /**
+     * Works out the castling rights of a board with no move history: a side may castle
+     * wherever its king and the rook are still on their home squares
+     */
+    private static int homeCastlingRights(BitBoard board) {
+        int rights = 0;
+        int whiteKing = BitBoard.pieceIndex(TeamColor.WHITE, ChessPiece.PieceType.KING);
+        int whiteRook = BitBoard.pieceIndex(TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        int blackKing = BitBoard.pieceIndex(TeamColor.BLACK, ChessPiece.PieceType.KING);
+        int blackRook = BitBoard.pieceIndex(TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        if (board.pieceAt(4) == whiteKing) {
+            rights |= board.pieceAt(7) == whiteRook ? WHITE_KINGSIDE : 0;
+            rights |= board.pieceAt(0) == whiteRook ? WHITE_QUEENSIDE : 0;
+        }
+        if (board.pieceAt(60) == blackKing) {
+            rights |= board.pieceAt(63) == blackRook ? BLACK_KINGSIDE : 0;
+            rights |= board.pieceAt(56) == blackRook ? BLACK_QUEENSIDE : 0;
+        }
+        return rights;
     }
 
     /**
@@ -231,19 +912,23 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * @return true if either team has no legal moves, or the game is drawn by threefold
+     * repetition or the fifty-move rule
+     */
     public boolean isGameOver() {
         for (TeamColor color : TeamColor.values()) {
-            if (isInStalemate(color) || isInCheckmate(color)) {
+            if (getStatus(color).isGameOver()) {
                 return true;
             }
         }
-        return false;
+        return isThreefoldRepetition() || isFiftyMoveDraw();
     }
 
     public String getWinner() {
-        if (isInCheckmate(TeamColor.WHITE)) {
+        if (getStatus(TeamColor.WHITE).isCheckmate()) {
             return "BLACK";
-        } else if (isInCheckmate(TeamColor.BLACK)) {
+        } else if (getStatus(TeamColor.BLACK).isCheckmate()) {
             return "WHITE";
         } else if (isGameOver()) {
             return "DRAW";
@@ -252,6 +937,39 @@ public class ChessGame {
         }
     }
 
+    /**
+     * Like {@link #isGameOver()}, but also ends the game as soon as the tablebase knows
+     * how it ends with best play, so a won or drawn endgame need not be played out
+     *
+     * @param tablebase the endgame tables to adjudicate with
+     */
+    public boolean isGameOver(Tablebase tablebase) {
+        return isGameOver() || tablebase.probe(this) != Tablebase.UNKNOWN;
+    }
+
+    /**
+     * Like {@link #getWinner()}, but also gives the result of an endgame the tablebase
+     * knows, as if it had been played out
+     *
+     * @param tablebase the endgame tables to adjudicate with
+     * @return "WHITE", "BLACK", "DRAW", or an empty string if the game goes on
+     */
+    public String getWinner(Tablebase tablebase) {
+        String winner = getWinner();
+        if (!winner.isEmpty()) {
+            return winner;
+        }
+        int value = tablebase.probe(this);
+        if (Tablebase.isWin(value)) {
+            return teamTurn.name();
+        } else if (Tablebase.isLoss(value)) {
+            return teamTurn == TeamColor.WHITE ? TeamColor.BLACK.name() : TeamColor.WHITE.name();
+        } else if (value == 0) {
+            return "DRAW";
+        }
+        return "";
+    }
+
     public boolean getGameOver() {
         return gameOver;
     }
@@ -45,6 +45,15 @@ public class ChessMove {
         return promotionPiece;
     }
 
+    /**
+     * @param game the position the move is played in
+     * @return the move in Standard Algebraic Notation, such as {@code Nbd7} or {@code exd8=Q+}
+     * @throws IllegalArgumentException if the move is not legal in the position
+     */
+    public String toSan(ChessGame game) {
+        return game.toSan(this);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
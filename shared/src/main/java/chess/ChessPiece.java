@@ -12,14 +12,45 @@ import java.util.Objects;
  */
 public class ChessPiece implements Cloneable {
 
-    ChessGame.TeamColor pieceColor;
-    ChessPiece.PieceType type;
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+    private static final int[][] KNIGHT_COORDINATES = {{1,2}, {2,1}, {2,-1}, {1,-2}, {-1,-2}, {-2,-1}, {-2,1}, {-1,2}};
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[BitBoard.pieceIndex(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
+
+    final ChessGame.TeamColor pieceColor;
+    final ChessPiece.PieceType type;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance for a kind of piece. Pieces never change once created,
+     * so boards and move generators can reuse these instead of allocating their own.
+     *
+     * @param pieceColor the team the piece belongs to
+     * @param type       the type of piece
+     * @return the cached piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[BitBoard.pieceIndex(pieceColor, type)];
+    }
+
+    /**
+     * @param pieceIndex a 0-11 piece index as used by {@link BitBoard}
+     * @return the cached piece for the index
+     */
+    public static ChessPiece ofIndex(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+
     @Override
     public ChessPiece clone() {
         try {
@@ -88,7 +119,7 @@ public class ChessPiece implements Cloneable {
         ArrayList<ChessMove> moves = new ArrayList<>();
         for (int i = -1; i < 2; i++) {
             for (int j = -1; j < 2; j++) {
-                ChessPosition currPosition = new ChessPosition(myPosition.getRow()+i,
+                ChessPosition currPosition = ChessPosition.of(myPosition.getRow()+i,
                         myPosition.getColumn()+j);
                 if (inRange(currPosition)) {
                     if (board.getPiece(currPosition) == null || board.getPiece(currPosition).pieceColor != pieceColor) {
@@ -112,7 +143,7 @@ public class ChessPiece implements Cloneable {
             relativeCoords = new int[][] {{1,direction}, {-1,direction}, {0, direction}};
         }
         for (int[] coord : relativeCoords) {
-            ChessPosition currPosition = new ChessPosition(myPosition.getRow() + coord[1],
+            ChessPosition currPosition = ChessPosition.of(myPosition.getRow() + coord[1],
                     myPosition.getColumn() + coord[0]) ;
             if (inRange(currPosition)) {
                 if (coord[0] == 0) {
@@ -135,55 +166,39 @@ public class ChessPiece implements Cloneable {
         return moves;
     }
 
-    private ArrayList<ChessMove> getLineMoves(ChessBoard board, ChessPosition myPosition, int[][] directions) {
-        ArrayList<ChessMove> moves = new ArrayList<>();
-        int rowVelocity, colVelocity, rowPosition, colPosition;
-        for (int[] direction : directions) {
-            colVelocity = direction[0];
-            rowVelocity = direction[1];
-            colPosition = myPosition.getColumn();
-            rowPosition = myPosition.getRow();
-            while (true) {
-                colPosition += colVelocity;
-                rowPosition += rowVelocity;
-                ChessPosition currPosition = new ChessPosition(rowPosition, colPosition);
-                if (inRange(currPosition)) {
-                    if (board.getPiece(currPosition) == null) {
-                        moves.add(new ChessMove(myPosition, currPosition, null));
-                    } else if (board.getPiece(currPosition).pieceColor != pieceColor) {
-                        moves.add(new ChessMove(myPosition, currPosition, null));
-                        break;
-                    } else {
-                        break;
-                    }
-                } else {
-                    break;
-                }
-            }
+    /**
+     * Turns a set of attacked squares from {@link Attacks} into moves, leaving out the
+     * squares this piece's own team stands on
+     */
+    private ArrayList<ChessMove> getLineMoves(ChessBoard board, ChessPosition myPosition, long attacks) {
+        long targets = attacks & ~board.getBitBoard().team(pieceColor);
+        ArrayList<ChessMove> moves = new ArrayList<>(Long.bitCount(targets));
+        while (targets != 0) {
+            moves.add(new ChessMove(myPosition, ChessPosition.ofSquare(Long.numberOfTrailingZeros(targets)), null));
+            targets &= targets - 1;
         }
         return moves;
     }
 
     private ArrayList<ChessMove> getRookMoves(ChessBoard board, ChessPosition myPosition) {
-        int[][] directions = {{1,0}, {-1,0}, {0,1}, {0,-1}};
-        return getLineMoves(board, myPosition, directions);
+        return getLineMoves(board, myPosition,
+                Attacks.rook(BitBoard.square(myPosition), board.getBitBoard().occupied()));
     }
 
     private ArrayList<ChessMove> getBishopMoves(ChessBoard board, ChessPosition myPosition) {
-        int[][] directions = {{1,1}, {-1,1}, {1,-1}, {-1,-1}};
-        return getLineMoves(board, myPosition, directions);
+        return getLineMoves(board, myPosition,
+                Attacks.bishop(BitBoard.square(myPosition), board.getBitBoard().occupied()));
     }
 
     private ArrayList<ChessMove> getQueenMoves(ChessBoard board, ChessPosition myPosition) {
-        int[][] directions = {{1,0}, {-1,0}, {0,1}, {0,-1}, {1,1}, {-1,1}, {1,-1}, {-1,-1}};
-        return getLineMoves(board, myPosition, directions);
+        return getLineMoves(board, myPosition,
+                Attacks.queen(BitBoard.square(myPosition), board.getBitBoard().occupied()));
     }
 
     private ArrayList<ChessMove> getKnightMoves(ChessBoard board, ChessPosition myPosition) {
         ArrayList<ChessMove> moves = new ArrayList<>();
-        int[][] relativeCoordinates = {{1,2}, {2,1}, {2,-1}, {1,-2}, {-1,-2}, {-2,-1}, {-2,1}, {-1,2}};
-        for (int[] coord : relativeCoordinates) {
-            ChessPosition currPosition = new ChessPosition(myPosition.getRow() + coord[1],
+        for (int[] coord : KNIGHT_COORDINATES) {
+            ChessPosition currPosition = ChessPosition.of(myPosition.getRow() + coord[1],
                     myPosition.getColumn() + coord[0]);
             if (inRange(currPosition)) {
                 if (board.getPiece(currPosition) == null || board.getPiece(currPosition).pieceColor != pieceColor) {
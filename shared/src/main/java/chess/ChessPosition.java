@@ -10,6 +10,14 @@ import java.util.Objects;
  */
 public class ChessPosition {
 
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new ChessPosition(BitBoard.row(square), BitBoard.column(square));
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -18,6 +26,29 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared instance for a position, so hot paths do not allocate a new
+     * position every time they refer to a square
+     *
+     * @param row which row the position is in, 1-8
+     * @param col which column the position is in, 1-8
+     * @return the cached position, or a new one if the row or column is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return POSITIONS[BitBoard.square(row, col)];
+    }
+
+    /**
+     * @param square a 0-63 square index as used by {@link BitBoard}
+     * @return the cached position for the square
+     */
+    public static ChessPosition ofSquare(int square) {
+        return POSITIONS[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
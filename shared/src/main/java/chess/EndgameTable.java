@@ -0,0 +1,207 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * The value of every placement of one set of pieces, as a {@link Tablebase} reports it.
+ * The table is named after its pieces, white's first, as in {@code KQvK}; the same table
+ * answers for the position with the colors swapped.
+ * <p>
+ * A position's index holds the side to move in its lowest bit, then six bits for the
+ * square of each piece, the pieces taken in piece index order. Indexes of impossible
+ * placements, such as two pieces on one square, are kept so that an index is just a few
+ * shifts; they are stored as draws and never read.
+ * <p>
+ * Values are bit-packed, since wins always take an odd number of plies and losses an even
+ * number: a code of 0 is a draw, codes 1 to {@code w} win in that many moves, and higher
+ * codes lose in {@code code - w - 1} moves. Each code takes as few bits as the table's
+ * longest mate needs. The layout, all big-endian, is:
+ * <ul>
+ *     <li>4 bytes: {@link #MAGIC}</li>
+ *     <li>1 byte: bits per value</li>
+ *     <li>1 byte: {@code w}, the longest win in moves</li>
+ *     <li>2 bytes: zero</li>
+ *     <li>8 bytes: the number of values</li>
+ *     <li>the values, each code's highest bit first</li>
+ *     <li>8 bytes of padding, so any value can be read with one 8-byte read</li>
+ * </ul>
+ */
+final class EndgameTable {
+
+    static final String EXTENSION = ".tb";
+    static final int MAGIC = 0x43544231;
+    static final int HEADER_BYTES = 16;
+
+    private static final Pattern NAME = Pattern.compile("K[QRBNP]*vK[QRBNP]*");
+    private static final String LETTERS = "KQBNRP";
+
+    private final String name;
+    private final int[] pieces;
+    private final ByteBuffer data;
+    private final int bits;
+    private final int mask;
+    private final int[] decoded;
+
+    /**
+     * @param name the table's pieces, such as {@code KRvK}
+     * @param data the table in the layout {@link #pack} writes
+     * @throws IllegalArgumentException if the data is not a table for the pieces
+     */
+    EndgameTable(String name, ByteBuffer data) {
+        this.name = name;
+        this.pieces = pieces(name);
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an endgame table: " + name);
+        }
+        bits = data.get(4);
+        int wins = data.get(5) & 0xFF;
+        long count = data.getLong(8);
+        if (bits < 1 || bits > 8 || count != size(pieces.length) ||
+                data.capacity() != packedSize(count, bits)) {
+            throw new IllegalArgumentException("Table " + name + " has the wrong size for its pieces");
+        }
+        if (2 * wins - 1 > Tablebase.LONGEST_MATE) {
+            throw new IllegalArgumentException("Table " + name + " has a mate too long to hold");
+        }
+        this.data = data;
+        mask = (1 << bits) - 1;
+        decoded = new int[1 << bits];
+        for (int code = 1; code < decoded.length; code++) {
+            decoded[code] = code <= wins ? Tablebase.win(2 * code - 1) : Tablebase.loss(2 * (code - wins - 1));
+        }
+    }
+
+    /**
+     * @param pieceCount the number of pieces on the board, kings included
+     * @return the number of indexes of a table with that many pieces
+     */
+    static int size(int pieceCount) {
+        return 2 << (6 * pieceCount);
+    }
+
+    /**
+     * Packs one value per index into the table layout
+     *
+     * @param values each index's value, as {@link Tablebase#probe} reports it
+     * @return the table's bytes
+     */
+    static byte[] pack(byte[] values) {
+        int wins = 0;
+        int losses = 0;
+        for (byte value : values) {
+            if (Tablebase.isWin(value)) {
+                wins = Math.max(wins, (Tablebase.pliesToMate(value) + 1) / 2);
+            } else if (Tablebase.isLoss(value)) {
+                losses = Math.max(losses, Tablebase.pliesToMate(value) / 2);
+            }
+        }
+        int codes = wins + losses + 2;
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(codes - 1));
+
+        ByteBuffer data = ByteBuffer.allocate((int) packedSize(values.length, bits));
+        data.putInt(MAGIC).put((byte) bits).put((byte) wins).putShort((short) 0).putLong(values.length);
+        long buffer = 0;
+        int buffered = 0;
+        for (byte value : values) {
+            int code = 0;
+            if (Tablebase.isWin(value)) {
+                code = (Tablebase.pliesToMate(value) + 1) / 2;
+            } else if (Tablebase.isLoss(value)) {
+                code = wins + 1 + Tablebase.pliesToMate(value) / 2;
+            }
+            buffer = (buffer << bits) | code;
+            buffered += bits;
+            if (buffered >= 8) {
+                buffered -= 8;
+                data.put((byte) (buffer >>> buffered));
+            }
+        }
+        if (buffered > 0) {
+            data.put((byte) (buffer << (8 - buffered)));
+        }
+        return data.array();
+    }
+
+    private static long packedSize(long count, int bits) {
+        return HEADER_BYTES + (count * bits + 7) / 8 + 8;
+    }
+
+    /**
+     * @param name a table name, such as {@code KPvK}
+     * @return the piece indexes of the table's pieces, in index order
+     * @throws IllegalArgumentException if the name is not a table name
+     */
+    static int[] pieces(String name) {
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Not an endgame table name: " + name);
+        }
+        int split = name.indexOf('v');
+        int[] pieces = new int[name.length() - 1];
+        int count = 0;
+        for (int i = 0; i < name.length(); i++) {
+            if (i != split) {
+                int color = i < split ? 0 : 1;
+                pieces[count++] = color * 6 + LETTERS.indexOf(name.charAt(i));
+            }
+        }
+        Arrays.sort(pieces);
+        return pieces;
+    }
+
+    /**
+     * @return the material key of a table's pieces, as {@link Tablebase#materialKey} computes it
+     */
+    static long materialKey(int[] pieces) {
+        long key = 0;
+        for (int piece : pieces) {
+            key += 1L << (4 * piece);
+        }
+        return key;
+    }
+
+    String name() {
+        return name;
+    }
+
+    int[] pieces() {
+        return pieces;
+    }
+
+    /**
+     * @return the number of bits each value takes
+     */
+    int bits() {
+        return bits;
+    }
+
+    /**
+     * Finds the index of a position on a board holding exactly this table's pieces
+     *
+     * @param flip whether the board holds the pieces with the colors swapped, in which case
+     *             the position is looked up mirrored top to bottom with the other side to move
+     */
+    int index(BitBoard board, ChessGame.TeamColor turn, boolean flip) {
+        int index = turn.ordinal() ^ (flip ? 1 : 0);
+        int previous = BitBoard.NO_PIECE;
+        long remaining = 0;
+        for (int i = 0; i < pieces.length; i++) {
+            int piece = flip ? (pieces[i] + 6) % 12 : pieces[i];
+            if (piece != previous) {
+                remaining = board.pieces(piece);
+                previous = piece;
+            }
+            int square = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            index |= (flip ? square ^ 56 : square) << (1 + 6 * i);
+        }
+        return index;
+    }
+
+    int value(int index) {
+        long bit = (long) index * bits;
+        long word = data.getLong(HEADER_BYTES + (int) (bit >>> 3));
+        return decoded[(int) (word >>> (64 - bits - (bit & 7))) & mask];
+    }
+}
@@ -0,0 +1,39 @@
+package chess;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Everything about one team's situation in a position that takes a full legal move
+ * sweep to find out. {@link ChessGame} computes it once per position and hands the same
+ * instance to every status query until the position changes.
+ *
+ * @param team       the team the status describes
+ * @param inCheck    whether the team's king is attacked
+ * @param legalMoves every legal move the team has, unmodifiable
+ */
+public record GameStatus(ChessGame.TeamColor team, boolean inCheck, Collection<ChessMove> legalMoves) {
+
+    public GameStatus {
+        legalMoves = List.copyOf(legalMoves);
+    }
+
+    public int legalMoveCount() {
+        return legalMoves.size();
+    }
+
+    public boolean isCheckmate() {
+        return inCheck && legalMoves.isEmpty();
+    }
+
+    public boolean isStalemate() {
+        return !inCheck && legalMoves.isEmpty();
+    }
+
+    /**
+     * @return true if the team has no legal moves, by checkmate or stalemate
+     */
+    public boolean isGameOver() {
+        return legalMoves.isEmpty();
+    }
+}
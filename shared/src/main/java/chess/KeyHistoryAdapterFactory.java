@@ -0,0 +1,64 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Serializes a {@link ChessGame} field by field, as Gson would on its own, except that
+ * the position key ring is cut down to the keys that can still repeat. A new game then
+ * carries an empty list instead of the whole ring. Games written before the ring was
+ * cut down, with a {@code historyLength} field, are still read as they are.
+ */
+final class KeyHistoryAdapterFactory implements TypeAdapterFactory {
+
+    private static final String KEYS = "keyHistory";
+    private static final String LENGTH = "historyLength";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != ChessGame.class) {
+            return null;
+        }
+        TypeAdapter<ChessGame> fields = gson.getDelegateAdapter(this, TypeToken.get(ChessGame.class));
+        TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+        TypeAdapter<long[]> keys = gson.getAdapter(long[].class);
+        return (TypeAdapter<T>) new TypeAdapter<ChessGame>() {
+            @Override
+            public void write(JsonWriter out, ChessGame game) throws IOException {
+                if (game == null) {
+                    out.nullValue();
+                    return;
+                }
+                JsonObject json = fields.toJsonTree(game).getAsJsonObject();
+                json.remove(LENGTH);
+                json.add(KEYS, keys.toJsonTree(game.liveKeys()));
+                elements.write(out, json);
+            }
+
+            @Override
+            public ChessGame read(JsonReader in) throws IOException {
+                JsonElement element = elements.read(in);
+                if (element == null || element.isJsonNull()) {
+                    return null;
+                }
+                JsonObject json = element.getAsJsonObject();
+                if (json.has(LENGTH) || !json.has(KEYS)) {
+                    return fields.fromJsonTree(json);
+                }
+                long[] live = keys.fromJsonTree(json.remove(KEYS));
+                ChessGame game = fields.fromJsonTree(json);
+                game.restoreKeys(live);
+                return game;
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package chess;
+
+/**
+ * Packs a move into a single int so move generation and search can work with
+ * primitive arrays instead of {@link ChessMove} objects.
+ * <p>
+ * Layout, from the lowest bit: start square (6 bits), end square (6 bits), promotion
+ * piece type ordinal plus one, or 0 for none (3 bits), then flag bits. Squares use the
+ * 0-63 numbering of {@link BitBoard}.
+ */
+public final class Move {
+
+    /**
+     * An encoding no real move can have, since its start and end squares are the same
+     */
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() { }
+
+    public static int encode(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion) {
+        int move = from | (to << 6);
+        return promotion == null ? move : move | ((promotion.ordinal() + 1) << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return the piece type a pawn promotes to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = (move >>> 12) & 0x7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & (0x7 << 12)) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return the move with its flag bits cleared, so moves built from a {@link ChessMove}
+     * can be compared with generated ones
+     */
+    public static int withoutFlags(int move) {
+        return move & 0x7FFF;
+    }
+
+    public static int fromChessMove(ChessMove move) {
+        return encode(BitBoard.square(move.getStartPosition()), BitBoard.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.ofSquare(from(move)), ChessPosition.ofSquare(to(move)),
+                promotion(move));
+    }
+
+    /**
+     * @return the move in long algebraic coordinates, such as e2e4 or a7a8q
+     */
+    public static String toString(int move) {
+        String text = squareName(from(move)) + squareName(to(move));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion == null) {
+            return text;
+        }
+        return text + switch (promotion) {
+            case QUEEN -> "q";
+            case ROOK -> "r";
+            case BISHOP -> "b";
+            default -> "n";
+        };
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + BitBoard.column(square) - 1) + BitBoard.row(square);
+    }
+}
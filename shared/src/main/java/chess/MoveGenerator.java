@@ -0,0 +1,333 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Generates strictly legal moves straight from a game's {@link BitBoard}, its castling
+ * rights and its en passant square.
+ * <p>
+ * The pieces giving check and the pieces pinned against their own king are found
+ * once before any moves are produced, so every move that comes out is already legal
+ * and nothing is ever tried on the board to see whether it leaves the king in check.
+ * En passant captures, which remove a piece from a square the capturing pawn does not
+ * land on, are checked on their own against the board as it would be after the capture.
+ */
+public final class MoveGenerator {
+
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_8 = 0xFFL << 56;
+
+    private static final ChessPiece.PieceType[] PROMOTION_TYPES = {ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT};
+
+    private MoveGenerator() { }
+
+    /**
+     * @param game  the position to generate moves in
+     * @param color the team to generate moves for
+     * @return every legal move the team has, regardless of whose turn it is
+     */
+    public static Collection<ChessMove> legalMoves(ChessGame game, ChessGame.TeamColor color) {
+        MoveList moves = new MoveList();
+        generate(game, color, -1L, -1L, -1L, moves);
+        return toChessMoves(moves);
+    }
+
+    /**
+     * @param game   the position to generate moves in
+     * @param square the square of the piece to move
+     * @return the legal moves of the piece on the square, or an empty collection if it is empty
+     */
+    public static Collection<ChessMove> legalMoves(ChessGame game, int square) {
+        MoveList moves = new MoveList();
+        generate(game, square, moves);
+        return toChessMoves(moves);
+    }
+
+    /**
+     * Fills a move list with every legal move a team has, without allocating
+     *
+     * @param game  the position to generate moves in
+     * @param color the team to generate moves for
+     * @param moves the list to fill; it is cleared first
+     */
+    public static void generate(ChessGame game, ChessGame.TeamColor color, MoveList moves) {
+        moves.clear();
+        generate(game, color, -1L, -1L, -1L, moves);
+    }
+
+    /**
+     * Fills a move list with the legal moves of the piece on one square
+     *
+     * @param game   the position to generate moves in
+     * @param square the square of the piece to move
+     * @param moves  the list to fill; it is cleared first, and left empty if the square is
+     *               empty
+     */
+    public static void generate(ChessGame game, int square, MoveList moves) {
+        moves.clear();
+        int piece = game.getBoard().getBitBoard().pieceAt(square);
+        if (piece != BitBoard.NO_PIECE) {
+            generate(game, BitBoard.colorOf(piece), 1L << square, -1L, -1L, moves);
+        }
+    }
+
+    /**
+     * Fills a move list with a team's legal captures and promotions, the moves that
+     * change the material on the board
+     *
+     * @param game  the position to generate moves in
+     * @param color the team to generate moves for
+     * @param moves the list to fill; it is cleared first
+     */
+    public static void generateCaptures(ChessGame game, ChessGame.TeamColor color, MoveList moves) {
+        moves.clear();
+        long theirs = game.getBoard().getBitBoard().team(opponent(color));
+        generate(game, color, -1L, theirs, theirs | promotionRank(color) | enPassantTarget(game), moves);
+    }
+
+    /**
+     * Fills a move list with a team's legal moves that are neither captures nor
+     * promotions. Together with {@link #generateCaptures} it gives every legal move once.
+     *
+     * @param game  the position to generate moves in
+     * @param color the team to generate moves for
+     * @param moves the list to fill; it is cleared first
+     */
+    public static void generateQuiets(ChessGame game, ChessGame.TeamColor color, MoveList moves) {
+        moves.clear();
+        long empty = ~game.getBoard().getBitBoard().occupied();
+        generate(game, color, -1L, empty, empty & ~promotionRank(color) & ~enPassantTarget(game), moves);
+    }
+
+    private static long promotionRank(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? RANK_8 : RANK_1;
+    }
+
+    /**
+     * No pawn can step forward onto the en passant square, since the pawn that passed it
+     * stands in the way, so a pawn move there is always a capture
+     */
+    private static long enPassantTarget(ChessGame game) {
+        int square = game.getEnPassantSquare();
+        return square == BitBoard.NO_SQUARE ? 0 : 1L << square;
+    }
+
+    private static Collection<ChessMove> toChessMoves(MoveList moves) {
+        Collection<ChessMove> chessMoves = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            chessMoves.add(Move.toChessMove(moves.get(i)));
+        }
+        return chessMoves;
+    }
+
+    /**
+     * Finds the pieces of a team that cannot leave the line between their king and an
+     * enemy slider without exposing the king
+     *
+     * @param board the position to inspect
+     * @param color the team whose pinned pieces to find
+     * @param king  the square of the team's king
+     * @return the set of squares holding pinned pieces
+     */
+    public static long pinnedPieces(BitBoard board, ChessGame.TeamColor color, int king) {
+        ChessGame.TeamColor enemy = opponent(color);
+        long theirs = board.team(enemy);
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(king, theirs) & (board.pieces(enemy, ChessPiece.PieceType.ROOK) | queens)) |
+                (Attacks.bishop(king, theirs) & (board.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long ours = board.team(color);
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & board.occupied();
+            if (Long.bitCount(blockers) == 1 && (blockers & ours) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * @param from       the squares whose pieces may move
+     * @param filter     the squares pieces other than pawns may move to
+     * @param pawnFilter the squares pawns may move to
+     */
+    private static void generate(ChessGame game, ChessGame.TeamColor us, long from, long filter, long pawnFilter,
+                                 MoveList moves) {
+        BitBoard board = game.getBoard().getBitBoard();
+        ChessGame.TeamColor them = opponent(us);
+        long ours = board.team(us);
+        long occupied = board.occupied();
+        int king = board.kingSquare(us);
+        long targets = ~ours;
+        long pinned = 0;
+
+        addKingMoves(board, us, from, filter, moves);
+        addEnPassant(board, us, game.getEnPassantSquare(), from, pawnFilter, moves);
+        if (king != BitBoard.NO_SQUARE) {
+            long checkers = board.attackersTo(king, occupied) & board.team(them);
+            if (checkers == 0 && (from & (1L << king)) != 0) {
+                addCastling(board, us, game.getCastlingRights(), filter, moves);
+            }
+            if (Long.bitCount(checkers) > 1) {
+                return;
+            } else if (checkers != 0) {
+                targets &= Attacks.between(king, Long.numberOfTrailingZeros(checkers)) | checkers;
+            }
+            pinned = pinnedPieces(board, us, king);
+        }
+
+        long pieces = ours & from & ~board.pieces(us, ChessPiece.PieceType.KING);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long allowed = targets;
+            if ((pinned & (1L << square)) != 0) {
+                allowed &= Attacks.line(king, square);
+            }
+            switch (BitBoard.typeOf(board.pieceAt(square))) {
+                case PAWN -> addPawnMoves(board, us, square, allowed & pawnFilter, moves);
+                case KNIGHT -> addMoves(board, square, Attacks.knight(square) & allowed & filter, moves);
+                case BISHOP -> addMoves(board, square, Attacks.bishop(square, occupied) & allowed & filter, moves);
+                case ROOK -> addMoves(board, square, Attacks.rook(square, occupied) & allowed & filter, moves);
+                case QUEEN -> addMoves(board, square, Attacks.queen(square, occupied) & allowed & filter, moves);
+                default -> { }
+            }
+        }
+    }
+
+    private static void addKingMoves(BitBoard board, ChessGame.TeamColor us, long from, long filter,
+                                     MoveList moves) {
+        ChessGame.TeamColor them = opponent(us);
+        long kings = board.pieces(us, ChessPiece.PieceType.KING) & from;
+        while (kings != 0) {
+            int square = Long.numberOfTrailingZeros(kings);
+            kings &= kings - 1;
+            long withoutKing = board.occupied() & ~(1L << square);
+            long targets = Attacks.king(square) & ~board.team(us) & filter;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (!board.isAttacked(to, them, withoutKing)) {
+                    moves.add(withCapture(board, Move.encode(square, to), to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the castling moves of a team whose king is not in check. Each needs the right,
+     * the king and rook on their home squares, nothing between them, and no attack on
+     * the squares the king crosses or lands on.
+     */
+    private static void addCastling(BitBoard board, ChessGame.TeamColor us, int rights, long filter,
+                                    MoveList moves) {
+        boolean white = us == ChessGame.TeamColor.WHITE;
+        int kingside = white ? ChessGame.WHITE_KINGSIDE : ChessGame.BLACK_KINGSIDE;
+        int queenside = white ? ChessGame.WHITE_QUEENSIDE : ChessGame.BLACK_QUEENSIDE;
+        int king = white ? 4 : 60;
+        if ((rights & (kingside | queenside)) == 0 ||
+                board.pieceAt(king) != BitBoard.pieceIndex(us, ChessPiece.PieceType.KING)) {
+            return;
+        }
+        ChessGame.TeamColor them = opponent(us);
+        int rook = BitBoard.pieceIndex(us, ChessPiece.PieceType.ROOK);
+        long occupied = board.occupied();
+        if ((rights & kingside) != 0 && board.pieceAt(king + 3) == rook &&
+                (Attacks.between(king, king + 3) & occupied) == 0 &&
+                (filter & (1L << (king + 2))) != 0 &&
+                !board.isAttacked(king + 1, them) && !board.isAttacked(king + 2, them)) {
+            moves.add(Move.encode(king, king + 2));
+        }
+        if ((rights & queenside) != 0 && board.pieceAt(king - 4) == rook &&
+                (Attacks.between(king, king - 4) & occupied) == 0 &&
+                (filter & (1L << (king - 2))) != 0 &&
+                !board.isAttacked(king - 1, them) && !board.isAttacked(king - 2, them)) {
+            moves.add(Move.encode(king, king - 2));
+        }
+    }
+
+    /**
+     * Adds the en passant captures onto a square. Taking the pawn empties two squares
+     * on the capturing side's row, which can expose the king in ways the pin mask does
+     * not cover, so each capture is checked by looking for attackers on the board as it
+     * would be afterwards.
+     */
+    private static void addEnPassant(BitBoard board, ChessGame.TeamColor us, int target, long from,
+                                     long pawnFilter, MoveList moves) {
+        boolean white = us == ChessGame.TeamColor.WHITE;
+        if (target == BitBoard.NO_SQUARE || BitBoard.row(target) != (white ? 6 : 3) ||
+                (pawnFilter & (1L << target)) == 0) {
+            return;
+        }
+        ChessGame.TeamColor them = opponent(us);
+        int captured = target + (white ? -8 : 8);
+        if (board.pieceAt(captured) != BitBoard.pieceIndex(them, ChessPiece.PieceType.PAWN)) {
+            return;
+        }
+        int king = board.kingSquare(us);
+        long pawns = Attacks.pawn(them, target) & board.pieces(us, ChessPiece.PieceType.PAWN) & from;
+        while (pawns != 0) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long after = (board.occupied() ^ (1L << square) ^ (1L << captured)) | (1L << target);
+            if (king == BitBoard.NO_SQUARE ||
+                    (board.attackersTo(king, after) & board.team(them) & ~(1L << captured)) == 0) {
+                moves.add(Move.encode(square, target) | Move.CAPTURE);
+            }
+        }
+    }
+
+    private static void addPawnMoves(BitBoard board, ChessGame.TeamColor us, int square, long allowed,
+                                     MoveList moves) {
+        boolean white = us == ChessGame.TeamColor.WHITE;
+        int forward = white ? 8 : -8;
+        int startRow = white ? 2 : 7;
+        long occupied = board.occupied();
+
+        long targets = Attacks.pawn(us, square) & board.team(opponent(us));
+        int single = square + forward;
+        if (single >= 0 && single < 64 && (occupied & (1L << single)) == 0) {
+            targets |= 1L << single;
+            int twice = single + forward;
+            if (BitBoard.row(square) == startRow && (occupied & (1L << twice)) == 0) {
+                targets |= 1L << twice;
+            }
+        }
+        targets &= allowed;
+
+        int promotionRow = white ? 8 : 1;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (BitBoard.row(to) == promotionRow) {
+                for (ChessPiece.PieceType type : PROMOTION_TYPES) {
+                    moves.add(withCapture(board, Move.encode(square, to, type), to));
+                }
+            } else if (to - square == 2 * forward) {
+                moves.add(Move.encode(square, to) | Move.DOUBLE_PUSH);
+            } else {
+                moves.add(withCapture(board, Move.encode(square, to), to));
+            }
+        }
+    }
+
+    private static void addMoves(BitBoard board, int square, long targets, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(withCapture(board, Move.encode(square, to), to));
+        }
+    }
+
+    private static int withCapture(BitBoard board, int move, int to) {
+        return board.pieceAt(to) == BitBoard.NO_PIECE ? move : move | Move.CAPTURE;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
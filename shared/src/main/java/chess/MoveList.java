@@ -0,0 +1,59 @@
+package chess;
+
+/**
+ * A reusable, fixed-capacity buffer of moves encoded with {@link Move}. Move generation
+ * fills one of these instead of allocating a collection of {@link ChessMove} objects.
+ */
+public final class MoveList {
+
+    /**
+     * More than the most legal moves any chess position can have (218)
+     */
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return true if the list holds the move, ignoring flag bits
+     */
+    public boolean contains(int move) {
+        int target = Move.withoutFlags(move);
+        for (int i = 0; i < size; i++) {
+            if (Move.withoutFlags(moves[i]) == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void swap(int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+}
@@ -0,0 +1,257 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Performance test (perft) driver: counts every move path of a given length from a
+ * position. The counts are compared against published reference numbers to check the
+ * move generator, and timed to give a nodes-per-second figure for it.
+ * <p>
+ * Run with no arguments to time the standard suite, or with
+ * {@code <position name|FEN> <depth> [reference]} to print a per-move breakdown. Passing
+ * {@code reference} counts with {@link #PIECE_MOVES} instead of the legal move generator.
+ */
+public class Perft {
+
+    /**
+     * Produces the legal moves for the side to move in a game
+     */
+    public interface MoveSource {
+        void generate(ChessGame game, MoveList moves);
+    }
+
+    /**
+     * Legal moves for the side to move, from {@link MoveGenerator}
+     */
+    public static final MoveSource LEGAL_MOVES = (game, moves) -> game.legalMoves(game.getTeamTurn(), moves);
+
+    /**
+     * Legal moves for the side to move, found the slow way: every
+     * {@link ChessPiece#pieceMoves} result, castling move and en passant capture is
+     * played and kept if it does not leave the king in check. Used as an independent
+     * reference for the legal move generator.
+     */
+    public static final MoveSource PIECE_MOVES = Perft::pieceMovesFiltered;
+
+    /**
+     * A test position with its known move path counts
+     *
+     * @param name     short name of the position
+     * @param fen      the position in Forsyth-Edwards Notation
+     * @param expected the published perft count for depth 1, 2, ... as far as known
+     */
+    public record Position(String name, String fen, long... expected) {
+    }
+
+    public static final Position START = new Position("start",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            20L, 400L, 8902L, 197281L, 4865609L, 119060324L);
+    public static final Position KIWIPETE = new Position("kiwipete",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            48L, 2039L, 97862L, 4085603L, 193690690L, 8031647685L);
+    public static final Position POSITION_3 = new Position("position3",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            14L, 191L, 2812L, 43238L, 674624L, 11030083L);
+    public static final Position POSITION_4 = new Position("position4",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            6L, 264L, 9467L, 422333L, 15833292L, 706045033L);
+    public static final Position POSITION_5 = new Position("position5",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            44L, 1486L, 62379L, 2103487L, 89941194L);
+    public static final Position POSITION_6 = new Position("position6",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            46L, 2079L, 89890L, 3894594L, 164075551L, 6923051137L);
+
+    public static final List<Position> POSITIONS = List.of(START, KIWIPETE, POSITION_3, POSITION_4,
+            POSITION_5, POSITION_6);
+
+    private static final int MAX_DEPTH = 64;
+
+    private final MoveSource generator;
+    private final MoveList[] moveLists = new MoveList[MAX_DEPTH];
+
+    public Perft(MoveSource generator) {
+        this.generator = generator;
+        for (int i = 0; i < MAX_DEPTH; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Counts the move paths of exactly the given length from the game's position.
+     * The game is left in the position it started in.
+     *
+     * @param game  the position to count from
+     * @param depth the number of plies in each path
+     * @return the number of paths
+     */
+    public long perft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = moveLists[depth];
+        generator.generate(game, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.doMove(moves.get(i));
+            nodes += perft(game, depth - 1);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Splits a perft count by the first move played, which makes it easy to find the
+     * move a generator gets wrong by comparing against another generator
+     *
+     * @param game  the position to count from
+     * @param depth the number of plies in each path, including the first move
+     * @return the number of paths starting with each legal move, in generation order
+     */
+    public Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        generator.generate(game, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.doMove(moves.get(i));
+            counts.put(Move.toChessMove(moves.get(i)), perft(game, depth - 1));
+            game.undoMove();
+        }
+        return counts;
+    }
+
+    private static void pieceMovesFiltered(ChessGame game, MoveList moves) {
+        ChessGame.TeamColor color = game.getTeamTurn();
+        ChessBoard board = game.getBoard();
+        moves.clear();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece == null || piece.getTeamColor() != color) {
+                    continue;
+                }
+                List<ChessMove> candidates = new ArrayList<>(piece.pieceMoves(board, position));
+                if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                    addEnPassant(game, position, candidates);
+                } else if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+                    addCastling(game, position, candidates);
+                }
+                for (ChessMove move : candidates) {
+                    int encoded = Move.fromChessMove(move);
+                    if (isSafe(game, encoded, color)) {
+                        moves.add(encoded);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isSafe(ChessGame game, int move, ChessGame.TeamColor color) {
+        game.doMove(move);
+        boolean safe = !game.isInCheck(color);
+        game.undoMove();
+        return safe;
+    }
+
+    private static void addEnPassant(ChessGame game, ChessPosition pawn, List<ChessMove> candidates) {
+        int target = game.getEnPassantSquare();
+        if (target == BitBoard.NO_SQUARE) {
+            return;
+        }
+        ChessPosition targetPosition = ChessPosition.ofSquare(target);
+        int forward = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 1 : -1;
+        if (targetPosition.getRow() == pawn.getRow() + forward &&
+                Math.abs(targetPosition.getColumn() - pawn.getColumn()) == 1) {
+            candidates.add(new ChessMove(pawn, targetPosition, null));
+        }
+    }
+
+    /**
+     * Adds a castling move for each side the king still has the right to castle to, with
+     * the squares between king and rook empty and the king never passing through check
+     */
+    private static void addCastling(ChessGame game, ChessPosition king, List<ChessMove> candidates) {
+        ChessGame.TeamColor color = game.getTeamTurn();
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int row = white ? 1 : 8;
+        if (!king.equals(ChessPosition.of(row, 5)) || game.isInCheck(color)) {
+            return;
+        }
+        int[][] sides = {
+                {white ? ChessGame.WHITE_KINGSIDE : ChessGame.BLACK_KINGSIDE, 8, 1},
+                {white ? ChessGame.WHITE_QUEENSIDE : ChessGame.BLACK_QUEENSIDE, 1, -1}};
+        ChessBoard board = game.getBoard();
+        for (int[] side : sides) {
+            ChessPiece rook = board.getPiece(ChessPosition.of(row, side[1]));
+            if ((game.getCastlingRights() & side[0]) == 0 || rook == null ||
+                    rook.getPieceType() != ChessPiece.PieceType.ROOK || rook.getTeamColor() != color) {
+                continue;
+            }
+            boolean clear = true;
+            for (int column = Math.min(5, side[1]) + 1; column < Math.max(5, side[1]); column++) {
+                clear &= board.getPiece(ChessPosition.of(row, column)) == null;
+            }
+            ChessPosition crossed = ChessPosition.of(row, 5 + side[2]);
+            if (clear && isSafe(game, Move.fromChessMove(new ChessMove(king, crossed, null)), color)) {
+                candidates.add(new ChessMove(king, ChessPosition.of(row, 5 + 2 * side[2]), null));
+            }
+        }
+    }
+
+    private static void runSuite() {
+        Perft perft = new Perft(LEGAL_MOVES);
+        int[] depths = {5, 4, 5, 4, 4, 4};
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < POSITIONS.size(); i++) {
+            Position position = POSITIONS.get(i);
+            ChessGame game = ChessGame.fromFen(position.fen());
+            long start = System.nanoTime();
+            long nodes = perft.perft(game, depths[i]);
+            long elapsed = System.nanoTime() - start;
+            totalNodes += nodes;
+            totalNanos += elapsed;
+            String check = depths[i] <= position.expected().length && position.expected()[depths[i] - 1] == nodes ?
+                    "ok" : "expected " + position.expected()[depths[i] - 1];
+            System.out.printf("%-10s depth %d: %,14d nodes %8d ms  (%s)%n", position.name(), depths[i], nodes,
+                    elapsed / 1_000_000, check);
+        }
+        System.out.printf("total: %,d nodes in %d ms, %,d nodes/second%n", totalNodes, totalNanos / 1_000_000,
+                totalNodes * 1_000_000_000L / Math.max(1, totalNanos));
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            runSuite();
+            return;
+        }
+        String fen = args[0];
+        for (Position position : POSITIONS) {
+            if (position.name().equals(args[0])) {
+                fen = position.fen();
+            }
+        }
+        int depth = Integer.parseInt(args[1]);
+        boolean reference = args.length > 2 && args[2].equals("reference");
+        Perft perft = new Perft(reference ? PIECE_MOVES : LEGAL_MOVES);
+
+        ChessGame game = ChessGame.fromFen(fen);
+        long start = System.nanoTime();
+        Map<ChessMove, Long> counts = perft.divide(game, depth);
+        long elapsed = System.nanoTime() - start;
+        long nodes = 0;
+        for (Map.Entry<ChessMove, Long> entry : counts.entrySet()) {
+            System.out.println(Move.toString(Move.fromChessMove(entry.getKey())) + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        System.out.printf("%nNodes searched: %,d in %d ms, %,d nodes/second%n", nodes, elapsed / 1_000_000,
+                nodes * 1_000_000_000L / Math.max(1, elapsed));
+    }
+}
@@ -0,0 +1,159 @@
+package chess;
+
+/**
+ * Material and piece-square values for evaluating a position, one set for the middlegame
+ * and one for the endgame. {@link BitBoard} adds and subtracts these as pieces are placed
+ * and removed, the same way it keeps its Zobrist key, so a position's totals are always
+ * ready without scanning the board.
+ * <p>
+ * Values are in centipawns from white's point of view: a black piece contributes the
+ * negated value of a white piece on the mirrored square. Each piece and square's two
+ * values are packed into one int, the endgame value in the high half, so a board keeps
+ * both totals with a single addition; sums of packed values unpack the same way.
+ * <p>
+ * The phase weights measure how much non-pawn material is left, from
+ * {@link #MAX_PHASE} at the start down to 0.
+ */
+public final class PieceSquareTables {
+
+    public static final int MAX_PHASE = 24;
+
+    /**
+     * Material values in {@link ChessPiece.PieceType} order
+     */
+    private static final int[] MIDDLEGAME_VALUES = {0, 1025, 365, 337, 477, 82};
+    private static final int[] ENDGAME_VALUES = {0, 936, 297, 281, 512, 94};
+    private static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+
+    // Tables are laid out as the board is drawn for white: row 8 first, a-file on the left
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20};
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50};
+    private static final int[] QUEEN = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20};
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20};
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50};
+    private static final int[] ROOK = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0};
+    private static final int[] PAWN_MIDDLEGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0};
+    private static final int[] PAWN_ENDGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             80,  80,  80,  80,  80,  80,  80,  80,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             30,  30,  30,  30,  30,  30,  30,  30,
+             15,  15,  15,  15,  15,  15,  15,  15,
+              5,   5,   5,   5,   5,   5,   5,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0};
+
+    private static final int[][] MIDDLEGAME_TABLES = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+    private static final int[][] ENDGAME_TABLES = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+
+    private static final int[] PACKED = new int[12 * 64];
+    private static final int[] PHASE = new int[12];
+
+    static {
+        for (int piece = 0; piece < 12; piece++) {
+            int type = piece % 6;
+            boolean white = piece < 6;
+            for (int square = 0; square < 64; square++) {
+                // A white piece on a1 reads the bottom-left entry; a black piece reads the
+                // entry its square maps to when the board is flipped
+                int index = white ? square ^ 56 : square;
+                int sign = white ? 1 : -1;
+                PACKED[piece * 64 + square] = pack(sign * (MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][index]),
+                        sign * (ENDGAME_VALUES[type] + ENDGAME_TABLES[type][index]));
+            }
+            PHASE[piece] = PHASE_WEIGHTS[type];
+        }
+    }
+
+    private PieceSquareTables() { }
+
+    /**
+     * @return the packed middlegame and endgame values of a piece on a square
+     */
+    public static int packed(int pieceIndex, int square) {
+        return PACKED[pieceIndex * 64 + square];
+    }
+
+    public static int pack(int middlegame, int endgame) {
+        return (endgame << 16) + middlegame;
+    }
+
+    /**
+     * @param packed a packed value or a sum of them
+     * @return the middlegame part, positive for white
+     */
+    public static int middlegame(int packed) {
+        return (short) packed;
+    }
+
+    /**
+     * @param packed a packed value or a sum of them
+     * @return the endgame part, positive for white
+     */
+    public static int endgame(int packed) {
+        return (packed + 0x8000) >> 16;
+    }
+
+    /**
+     * @return how much the piece counts towards the game phase
+     */
+    public static int phase(int pieceIndex) {
+        return PHASE[pieceIndex];
+    }
+}
@@ -0,0 +1,216 @@
+package chess;
+
+/**
+ * Reads and writes moves in Standard Algebraic Notation, such as {@code e4}, {@code Nbd7}
+ * or {@code exd8=Q+}, for {@link ChessGame}. Both directions work from a list of the
+ * position's legal moves that the game generates once and keeps, so telling a move apart
+ * from the others and finding it from its text are single scans of that list.
+ */
+final class San {
+
+    /**
+     * Piece letters, indexed by piece type
+     */
+    private static final String LETTERS = "KQBNRP";
+
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private San() { }
+
+    /**
+     * Finds the legal move a piece of SAN stands for. Check and annotation suffixes are
+     * ignored, and castling may be written with zeros.
+     *
+     * @param board the position the move is played in
+     * @param san   the text holding the move
+     * @param start the index of the move's first character
+     * @param end   the index after the move's last character
+     * @param legal the legal moves of the side to move
+     * @return the move, encoded with {@link Move}
+     * @throws InvalidMoveException if the text is not a legal move in the position
+     */
+    static int parse(BitBoard board, CharSequence san, int start, int end, MoveList legal)
+            throws InvalidMoveException {
+        while (end > start && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        int textStart = start;
+        int textEnd = end;
+        if (isCastling(san, start, end)) {
+            int direction = end - start == 5 ? -2 : 2;
+            for (int i = 0; i < legal.size(); i++) {
+                int move = legal.get(i);
+                if (board.pieceAt(Move.from(move)) % 6 == KING && Move.to(move) - Move.from(move) == direction) {
+                    return move;
+                }
+            }
+            throw illegal(san, textStart, textEnd, "is not a legal move");
+        }
+
+        int type = PAWN;
+        if (end > start && "KQBNR".indexOf(san.charAt(start)) >= 0) {
+            type = LETTERS.indexOf(san.charAt(start));
+            start++;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (end - start >= 2 && san.charAt(end - 2) == '=') {
+            promotion = promotionType(san, textStart, textEnd, san.charAt(end - 1));
+            end -= 2;
+        } else if (type == PAWN && end > start && "QBNR".indexOf(san.charAt(end - 1)) >= 0) {
+            promotion = promotionType(san, textStart, textEnd, san.charAt(end - 1));
+            end--;
+        }
+        if (end - start < 2) {
+            throw illegal(san, textStart, textEnd, "is not a move");
+        }
+        int toColumn = san.charAt(end - 2) - 'a' + 1;
+        int toRow = san.charAt(end - 1) - '0';
+        if (toColumn < 1 || toColumn > 8 || toRow < 1 || toRow > 8) {
+            throw illegal(san, textStart, textEnd, "has no destination square");
+        }
+        int fromColumn = 0;
+        int fromRow = 0;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h' && fromColumn == 0) {
+                fromColumn = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8' && fromRow == 0) {
+                fromRow = c - '0';
+            } else if (c != 'x' || i != end - 3) {
+                throw illegal(san, textStart, textEnd, "is not a move");
+            }
+        }
+
+        int to = BitBoard.square(toRow, toColumn);
+        int found = Move.NONE;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            int from = Move.from(move);
+            if (Move.to(move) == to && board.pieceAt(from) % 6 == type && Move.promotion(move) == promotion &&
+                    (fromColumn == 0 || BitBoard.column(from) == fromColumn) &&
+                    (fromRow == 0 || BitBoard.row(from) == fromRow)) {
+                if (found != Move.NONE) {
+                    throw illegal(san, textStart, textEnd, "is ambiguous");
+                }
+                found = move;
+            }
+        }
+        if (found == Move.NONE) {
+            throw illegal(san, textStart, textEnd, "is not a legal move");
+        }
+        return found;
+    }
+
+    /**
+     * Writes a legal move in SAN, with just enough of its start square to tell it apart
+     * from the same kind of piece's other moves to the same square, and a {@code +} or
+     * {@code #} if it gives check or mate
+     *
+     * @param game    the position the move is played in; it is left as it was
+     * @param move    the move, encoded with {@link Move}
+     * @param legal   the legal moves of the side to move
+     * @param replies a scratch list for the opponent's replies, to tell check from mate
+     * @return the move in SAN
+     * @throws IllegalArgumentException if the move is not legal in the position
+     */
+    static String format(ChessGame game, int move, MoveList legal, MoveList replies) {
+        int target = Move.withoutFlags(move);
+        move = Move.NONE;
+        for (int i = 0; i < legal.size(); i++) {
+            if (Move.withoutFlags(legal.get(i)) == target) {
+                move = legal.get(i);
+            }
+        }
+        if (move == Move.NONE) {
+            throw new IllegalArgumentException(Move.toString(target) + " is not a legal move");
+        }
+
+        BitBoard board = game.getBoard().getBitBoard();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = board.pieceAt(from);
+        int type = piece % 6;
+        StringBuilder san = new StringBuilder(8);
+        if (type == KING && (to - from == 2 || from - to == 2)) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            if (type == PAWN) {
+                if (Move.isCapture(move)) {
+                    san.append((char) ('a' + BitBoard.column(from) - 1));
+                }
+            } else {
+                san.append(LETTERS.charAt(type));
+                appendDisambiguation(san, board, legal, piece, from, to);
+            }
+            if (Move.isCapture(move)) {
+                san.append('x');
+            }
+            san.append(Move.squareName(to));
+            ChessPiece.PieceType promotion = Move.promotion(move);
+            if (promotion != null) {
+                san.append('=').append(LETTERS.charAt(promotion.ordinal()));
+            }
+        }
+
+        game.doMove(move);
+        if (game.isInCheck(game.getTeamTurn())) {
+            MoveGenerator.generate(game, game.getTeamTurn(), replies);
+            san.append(replies.isEmpty() ? '#' : '+');
+        }
+        game.undoMove();
+        return san.toString();
+    }
+
+    private static void appendDisambiguation(StringBuilder san, BitBoard board, MoveList legal, int piece,
+                                             int from, int to) {
+        boolean ambiguous = false;
+        boolean sameColumn = false;
+        boolean sameRow = false;
+        for (int i = 0; i < legal.size(); i++) {
+            int other = Move.from(legal.get(i));
+            if (Move.to(legal.get(i)) == to && other != from && board.pieceAt(other) == piece) {
+                ambiguous = true;
+                sameColumn |= BitBoard.column(other) == BitBoard.column(from);
+                sameRow |= BitBoard.row(other) == BitBoard.row(from);
+            }
+        }
+        if (ambiguous && (!sameColumn || sameRow)) {
+            san.append((char) ('a' + BitBoard.column(from) - 1));
+        }
+        if (ambiguous && sameColumn) {
+            san.append(BitBoard.row(from));
+        }
+    }
+
+    private static boolean isCastling(CharSequence san, int start, int end) {
+        int length = end - start;
+        if (length != 3 && length != 5) {
+            return false;
+        }
+        char o = san.charAt(start);
+        if (o != 'O' && o != '0') {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (san.charAt(i) != ((i - start) % 2 == 0 ? o : '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ChessPiece.PieceType promotionType(CharSequence san, int start, int end, char letter)
+            throws InvalidMoveException {
+        int type = LETTERS.indexOf(letter);
+        if (type < 0 || type == KING || type == PAWN) {
+            throw illegal(san, start, end, "promotes to an unknown piece");
+        }
+        return TYPES[type];
+    }
+
+    private static InvalidMoveException illegal(CharSequence san, int start, int end, String reason) {
+        return new InvalidMoveException("'" + san.subSequence(start, end) + "' " + reason);
+    }
+}
@@ -0,0 +1,246 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Knows the result of every position with only a few pieces left, with best play by both
+ * sides, from endgame tables built by {@link TablebaseGenerator}. A value is from the
+ * point of view of the side to move:
+ * <ul>
+ *     <li>0: a draw</li>
+ *     <li>a positive number: the side to move mates in that many plies</li>
+ *     <li>a negative number: the side to move is mated in {@code -value - 1} plies, so
+ *     -1 means it is checkmated already</li>
+ * </ul>
+ * Positions with too little material for either side to mate, such as a king and knight
+ * against a king, are drawn without needing a table. The fifty-move rule is not taken
+ * into account, and positions where castling or an en passant capture is possible are
+ * never looked up.
+ * <p>
+ * Tables are memory-mapped from their files, so opening a tablebase costs next to no heap
+ * and probing only touches the pages it needs. Probing uses absolute reads and never
+ * allocates, so one tablebase can be shared by any number of searches and threads.
+ */
+public final class Tablebase implements AutoCloseable {
+
+    /**
+     * The most pieces, kings included, that the tables cover
+     */
+    public static final int MAX_PIECES = 4;
+
+    /**
+     * The value of a position no table covers
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /**
+     * The most plies to mate a table can hold
+     */
+    public static final int LONGEST_MATE = 126;
+
+    private static final long MATING_MATERIAL = nibbles(1, 4, 5, 7, 10, 11);
+    private static final int[] MINOR_PIECES = {2, 3, 8, 9};
+
+    private final Map<Long, EndgameTable> tables = new HashMap<>();
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    /**
+     * Creates a tablebase without tables, which only knows the draws by lack of material
+     */
+    public Tablebase() { }
+
+    /**
+     * Opens every table file in a directory
+     *
+     * @param directory the directory holding the {@code .tb} files
+     * @throws IOException if a table cannot be mapped or has the wrong size
+     */
+    public Tablebase(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EndgameTable.EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - EndgameTable.EXTENSION.length());
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                channels.add(channel);
+                try {
+                    add(new EndgameTable(name, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Cannot read endgame table " + file + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the names of the tables this tablebase has, such as {@code KQvK}
+     */
+    public List<String> tableNames() {
+        List<String> names = new ArrayList<>();
+        for (EndgameTable table : tables.values()) {
+            names.add(table.name());
+        }
+        names.sort(null);
+        return names;
+    }
+
+    /**
+     * Looks up the game's current position
+     *
+     * @param game the position to look up
+     * @return the position's value for the side to move, or {@link #UNKNOWN} if no table
+     * covers it
+     */
+    public int probe(ChessGame game) {
+        if (game.getCastlingRights() != 0 || game.getEnPassantSquare() != BitBoard.NO_SQUARE) {
+            return UNKNOWN;
+        }
+        return probe(game.getBoard().getBitBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * Looks up a position, ignoring castling and en passant
+     */
+    int probe(BitBoard board, ChessGame.TeamColor turn) {
+        if (Long.bitCount(board.occupied()) > MAX_PIECES) {
+            return UNKNOWN;
+        }
+        long key = materialKey(board);
+        if (isInsufficientMaterial(key)) {
+            return 0;
+        }
+        EndgameTable table = tables.get(key);
+        if (table != null) {
+            return table.value(table.index(board, turn, false));
+        }
+        table = tables.get(swapColors(key));
+        if (table != null) {
+            return table.value(table.index(board, turn, true));
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @param value a value returned by a probe
+     * @return true if the side to move can force mate
+     */
+    public static boolean isWin(int value) {
+        return value > 0;
+    }
+
+    /**
+     * @param value a value returned by a probe
+     * @return true if the side to move is mated with best play
+     */
+    public static boolean isLoss(int value) {
+        return value < 0 && value != UNKNOWN;
+    }
+
+    /**
+     * @param value a value returned by a probe that is a win or a loss
+     * @return the number of plies until checkmate with best play
+     */
+    public static int pliesToMate(int value) {
+        return value > 0 ? value : -value - 1;
+    }
+
+    static int win(int plies) {
+        return plies;
+    }
+
+    static int loss(int plies) {
+        return -plies - 1;
+    }
+
+    /**
+     * Adds a table, replacing any table for the same pieces
+     */
+    void add(EndgameTable table) {
+        tables.put(EndgameTable.materialKey(table.pieces()), table);
+    }
+
+    /**
+     * Counts the pieces of each piece index into four bits apiece, so two positions have
+     * the same material exactly when their keys are equal
+     */
+    static long materialKey(BitBoard board) {
+        long key = 0;
+        for (int piece = 0; piece < 12; piece++) {
+            key |= (long) Long.bitCount(board.pieces(piece)) << (4 * piece);
+        }
+        return key;
+    }
+
+    /**
+     * @return the table name of a material key, white's pieces first
+     */
+    static String materialName(long key) {
+        StringBuilder name = new StringBuilder();
+        for (int color = 0; color < 2; color++) {
+            name.append(color == 0 ? "" : "v").append('K');
+            for (char letter : "QRBNP".toCharArray()) {
+                int piece = color * 6 + "KQBNRP".indexOf(letter);
+                name.repeat(letter, (int) (key >>> (4 * piece)) & 15);
+            }
+        }
+        return name.toString();
+    }
+
+    private static long nibbles(int... pieces) {
+        long mask = 0;
+        for (int piece : pieces) {
+            mask |= 15L << (4 * piece);
+        }
+        return mask;
+    }
+
+    private static long swapColors(long key) {
+        return ((key & 0xFFFFFFL) << 24) | (key >>> 24);
+    }
+
+    /**
+     * @return true if neither side has a queen, rook or pawn and there is at most one
+     * bishop or knight on the board
+     */
+    private static boolean isInsufficientMaterial(long key) {
+        if ((key & MATING_MATERIAL) != 0) {
+            return false;
+        }
+        int minors = 0;
+        for (int piece : MINOR_PIECES) {
+            minors += (int) (key >>> (4 * piece)) & 15;
+        }
+        return minors <= 1;
+    }
+
+    /**
+     * Closes the table files. The mappings themselves are released once the tablebase is
+     * garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        channels.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
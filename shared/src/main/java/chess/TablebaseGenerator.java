@@ -0,0 +1,696 @@
+package chess;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds endgame tables for a {@link Tablebase} by retrograde analysis, working back from
+ * the checkmates one ply at a time:
+ * <ol>
+ *     <li>every position with no legal move is checkmate or stalemate</li>
+ *     <li>a position is won in n plies once one of its moves leads to a position lost
+ *     in n - 1</li>
+ *     <li>a position is lost in n plies once every one of its moves leads to a won
+ *     position, the longest win taking n - 1</li>
+ * </ol>
+ * The first pass looks at every position. After that, a pass only looks again at the
+ * positions that could have changed: those with a move into a position the previous pass
+ * resolved, found by taking moves back, and those with a capture or promotion into a won
+ * or lost ending. Passes repeat until one resolves nothing, and whatever is still unknown
+ * then is a draw. Captures and promotions leave the table for another ending, so the
+ * tables they lead to have to be built first; {@link #ALL_TABLES} lists every table in
+ * an order that works. A double push that can be taken en passant leads to a position
+ * the table does not hold, so its value is worked out from the stored position and the
+ * captures together.
+ * <p>
+ * Each pass is split into ranges of indexes that a {@link ForkJoinPool} works through in
+ * parallel. A position is only ever written by the task that owns its index, and a pass
+ * never uses a value resolved during the same pass, so the tables come out the same
+ * however the work is split. Memory is one byte per position of the table being built
+ * plus three bits for bookkeeping; tables already built are kept bit-packed.
+ * <p>
+ * Run the class to write every table to a directory, given as the first argument, or to
+ * {@code tablebases} by default. Further arguments name the tables to build instead.
+ * Generation uses the common pool, so
+ * {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism} sets the thread count.
+ */
+public final class TablebaseGenerator {
+
+    /**
+     * Every ending with three pieces that is not drawn by lack of material
+     */
+    public static final List<String> THREE_PIECE_TABLES = List.of("KQvK", "KRvK", "KPvK");
+
+    /**
+     * Every ending with four pieces, each after the ones it depends on. These need the
+     * {@link #THREE_PIECE_TABLES} first.
+     */
+    public static final List<String> FOUR_PIECE_TABLES = List.of(
+            "KQvKQ", "KQvKR", "KQvKB", "KQvKN", "KRvKR", "KRvKB", "KRvKN", "KBvKB", "KBvKN", "KNvKN",
+            "KQQvK", "KQRvK", "KQBvK", "KQNvK", "KRRvK", "KRBvK", "KRNvK", "KBBvK", "KBNvK", "KNNvK",
+            "KQvKP", "KRvKP", "KBvKP", "KNvKP", "KQPvK", "KRPvK", "KBPvK", "KNPvK", "KPPvK", "KPvKP");
+
+    /**
+     * Every table, each after the ones it depends on
+     */
+    public static final List<String> ALL_TABLES = concat(THREE_PIECE_TABLES, FOUR_PIECE_TABLES);
+
+    /**
+     * How many indexes one task works through, a whole number of bitmap words
+     */
+    private static final int CHUNK = 1 << 14;
+    static final byte UNRESOLVED = Byte.MIN_VALUE;
+    private static final int NONE = Integer.MAX_VALUE;
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+    /**
+     * Piece type ordinals, as switch labels
+     */
+    private static final int KING = 0;
+    private static final int QUEEN = 1;
+    private static final int BISHOP = 2;
+    private static final int KNIGHT = 3;
+    private static final int ROOK = 4;
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] PROMOTIONS = {ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT};
+
+    private final String name;
+    private final Tablebase tablebase;
+    private final ForkJoinPool pool;
+    private final int[] pieces;
+    private final int[] kings = new int[2];
+    private final byte[] values;
+    /**
+     * Positions with a capture or promotion into a won or lost ending
+     */
+    private final long[] leavesTable;
+    private long[] pending;
+    private long[] nextPending;
+    private int plies;
+    private int longestElsewhere;
+
+    private TablebaseGenerator(String name, Tablebase tablebase, ForkJoinPool pool) {
+        this.name = name;
+        this.tablebase = tablebase;
+        this.pool = pool;
+        pieces = EndgameTable.pieces(name);
+        if (pieces.length > Tablebase.MAX_PIECES) {
+            throw new IllegalArgumentException("Tables cover at most " + Tablebase.MAX_PIECES + " pieces: " + name);
+        }
+        for (int i = 0; i < pieces.length; i++) {
+            if (BitBoard.typeOf(pieces[i]) == ChessPiece.PieceType.KING) {
+                kings[pieces[i] / 6] = i;
+            }
+        }
+        values = new byte[EndgameTable.size(pieces.length)];
+        leavesTable = new long[values.length / 64];
+        pending = new long[values.length / 64];
+        nextPending = new long[values.length / 64];
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args.length > 0 ? args[0] : "tablebases");
+        List<String> names = args.length > 1 ? List.of(args).subList(1, args.length) : ALL_TABLES;
+        Files.createDirectories(directory);
+        // Tables already in the directory can be depended on without building them again
+        try (Tablebase tablebase = new Tablebase(directory)) {
+            for (String name : names) {
+                long start = System.currentTimeMillis();
+                Path file = write(directory, name, tablebase);
+                System.out.printf("%s: %d bytes in %.1f s%n", name, Files.size(file),
+                        (System.currentTimeMillis() - start) / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * Builds tables in memory on the common pool
+     *
+     * @param names the tables to build, each after the tables it depends on
+     * @return a tablebase holding the tables
+     * @throws IllegalStateException if a table is named before one it depends on
+     */
+    public static Tablebase generate(List<String> names) {
+        return generate(names, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds tables in memory
+     *
+     * @param names the tables to build, each after the tables it depends on
+     * @param pool  the pool to build them on
+     * @return a tablebase holding the tables
+     * @throws IllegalStateException if a table is named before one it depends on
+     */
+    public static Tablebase generate(List<String> names, ForkJoinPool pool) {
+        Tablebase tablebase = new Tablebase();
+        for (String name : names) {
+            tablebase.add(new EndgameTable(name, ByteBuffer.wrap(EndgameTable.pack(generate(name, tablebase, pool)))));
+        }
+        return tablebase;
+    }
+
+    /**
+     * Builds tables on the common pool and writes each to its own file in a directory,
+     * where a {@link Tablebase} can open them
+     *
+     * @param directory the directory to write the {@code .tb} files to
+     * @param names     the tables to build, each after the tables it depends on
+     * @return the files written
+     * @throws IOException if a file cannot be written
+     */
+    public static List<Path> write(Path directory, List<String> names) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        List<Path> files = new ArrayList<>();
+        for (String name : names) {
+            files.add(write(directory, name, tablebase));
+        }
+        return files;
+    }
+
+    /**
+     * Builds one table, writes it, and adds it to the tablebase for the tables after it.
+     * The file is written under another name and then moved into place, so a mapping of
+     * an older copy of the table is never cut short.
+     */
+    private static Path write(Path directory, String name, Tablebase tablebase) throws IOException {
+        byte[] table = EndgameTable.pack(generate(name, tablebase, ForkJoinPool.commonPool()));
+        Path file = directory.resolve(name + EndgameTable.EXTENSION);
+        Path partial = directory.resolve(name + EndgameTable.EXTENSION + ".part");
+        Files.write(partial, table);
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        tablebase.add(new EndgameTable(name, ByteBuffer.wrap(table)));
+        return file;
+    }
+
+    /**
+     * @param name      the table to build, such as {@code KPvK}
+     * @param tablebase the tables of the endings its captures and promotions lead to
+     * @param pool      the pool to run the passes on
+     * @return the table's value at each index
+     */
+    static byte[] generate(String name, Tablebase tablebase, ForkJoinPool pool) {
+        return new TablebaseGenerator(name, tablebase, pool).solve();
+    }
+
+    private byte[] solve() {
+        plies = 0;
+        longestElsewhere = pool.invoke(new Pass(0, values.length)).longestElsewhere;
+        for (plies = 1; ; plies++) {
+            long[] swap = pending;
+            pending = nextPending;
+            nextPending = swap;
+            Arrays.fill(nextPending, 0);
+            int resolved = pool.invoke(new Pass(0, values.length)).resolved;
+            // A capture or promotion into a long mate elsewhere is only felt once the
+            // passes have caught up with its length
+            if (resolved == 0 && plies > longestElsewhere) {
+                break;
+            }
+        }
+        for (int index = 0; index < values.length; index++) {
+            if (values[index] == UNRESOLVED) {
+                values[index] = 0;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * What a range of a pass found
+     *
+     * @param resolved         how many positions it resolved
+     * @param longestElsewhere the longest mate a capture or promotion leads to
+     */
+    private record PassResult(int resolved, int longestElsewhere) {
+
+        PassResult merge(PassResult other) {
+            return new PassResult(resolved + other.resolved,
+                    Math.max(longestElsewhere, other.longestElsewhere));
+        }
+    }
+
+    /**
+     * Runs the current pass over a range of indexes, splitting it in half until the
+     * pieces are small enough to do directly
+     */
+    private final class Pass extends RecursiveTask<PassResult> {
+
+        private final int from;
+        private final int to;
+
+        Pass(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PassResult compute() {
+            if (to - from <= CHUNK) {
+                return new Worker().run(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Pass low = new Pass(from, middle);
+            low.fork();
+            PassResult high = new Pass(middle, to).compute();
+            return low.join().merge(high);
+        }
+    }
+
+    /**
+     * Works through the positions of one range, with scratch space of its own
+     */
+    private final class Worker {
+
+        private final int[] squares = new int[pieces.length];
+        private final BitBoard scratch = new BitBoard();
+        private long occupied;
+        private int resolved;
+        private int longest;
+
+        private int minLoss;
+        private int maxWin;
+        private boolean allWins;
+        private int moves;
+        private boolean enPassant;
+        private final int[] captures = new int[2];
+
+        PassResult run(int from, int to) {
+            if (plies == 0) {
+                for (int index = from; index < to; index++) {
+                    firstLook(index);
+                }
+            } else {
+                boolean elsewhere = plies <= longestElsewhere + 1;
+                for (int word = from / 64; word < to / 64; word++) {
+                    long candidates = pending[word] | (elsewhere ? leavesTable[word] : 0);
+                    while (candidates != 0) {
+                        int index = word * 64 + Long.numberOfTrailingZeros(candidates);
+                        candidates &= candidates - 1;
+                        if (values[index] == UNRESOLVED) {
+                            load(index);
+                            resolve(index, evaluate(index));
+                        }
+                    }
+                }
+            }
+            return new PassResult(resolved, longest);
+        }
+
+        /**
+         * Settles the impossible placements, checkmates and stalemates, and notes which
+         * positions can leave the table for a decided ending
+         */
+        private void firstLook(int index) {
+            if (!load(index)) {
+                values[index] = 0;
+                return;
+            }
+            values[index] = UNRESOLVED;
+            evaluate(index);
+            if (minLoss != NONE || maxWin >= 0 || enPassant) {
+                setBit(leavesTable, index);
+            }
+            if (moves == 0) {
+                int us = index & 1;
+                resolve(index, isAttacked(squares[kings[us]], us ^ 1, occupied, -1) ? Tablebase.loss(0) : 0);
+            }
+        }
+
+        /**
+         * Stores a position's value once it is known and marks the positions that move
+         * into it, which may now be known too
+         */
+        private void resolve(int index, int value) {
+            if (value == NONE) {
+                return;
+            }
+            if (Tablebase.pliesToMate(value) > Tablebase.LONGEST_MATE && value != 0) {
+                throw new IllegalStateException(name + " has a mate too long to store");
+            }
+            values[index] = (byte) value;
+            resolved++;
+            if (value != 0) {
+                markPredecessors(index);
+            }
+        }
+
+        /**
+         * Places the pieces as the index says
+         *
+         * @return false if the placement is impossible: two pieces on a square, a pawn on
+         * the first or last row, or the side that just moved left in check
+         */
+        private boolean load(int index) {
+            occupied = 0;
+            boolean pawnOnEdge = false;
+            for (int i = 0; i < pieces.length; i++) {
+                squares[i] = (index >>> (1 + 6 * i)) & 63;
+                occupied |= 1L << squares[i];
+                pawnOnEdge |= BitBoard.typeOf(pieces[i]) == ChessPiece.PieceType.PAWN &&
+                        (squares[i] < 8 || squares[i] >= 56);
+            }
+            int us = index & 1;
+            return !pawnOnEdge && Long.bitCount(occupied) == pieces.length &&
+                    !isAttacked(squares[kings[us ^ 1]], us, occupied, -1);
+        }
+
+        /**
+         * Looks at every legal move of the loaded position to see whether its value is
+         * known yet
+         *
+         * @return the position's value, or {@link #NONE}
+         */
+        private int evaluate(int index) {
+            int us = index & 1;
+            minLoss = NONE;
+            maxWin = -1;
+            allWins = true;
+            moves = 0;
+            enPassant = false;
+            for (int i = 0; i < pieces.length; i++) {
+                if (pieces[i] / 6 != us) {
+                    continue;
+                }
+                int piece = pieces[i];
+                int from = squares[i];
+                long targets = targets(piece, from);
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    int captured = pieceOn(to);
+                    long after = (occupied & ~(1L << from)) | (1L << to);
+                    int king = i == kings[us] ? to : squares[kings[us]];
+                    if (isAttacked(king, us ^ 1, after, captured)) {
+                        continue;
+                    }
+                    if (BitBoard.typeOf(piece) == ChessPiece.PieceType.PAWN && (to < 8 || to >= 56)) {
+                        for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                            consider(probeElsewhere(i, to, captured, BitBoard.pieceIndex(COLORS[us], promotion),
+                                    us ^ 1), false);
+                        }
+                    } else if (captured >= 0) {
+                        consider(probeElsewhere(i, to, captured, piece, us ^ 1), false);
+                    } else {
+                        int shift = 1 + 6 * i;
+                        int child = ((index & ~(63 << shift)) | (to << shift)) ^ 1;
+                        if (Math.abs(to - from) != 16 || BitBoard.typeOf(piece) != ChessPiece.PieceType.PAWN ||
+                                !considerEnPassant(i, from, to, child)) {
+                            consider(values[child], true);
+                        }
+                    }
+                }
+            }
+            if (minLoss < plies) {
+                return Tablebase.win(minLoss + 1);
+            } else if (allWins && maxWin < plies) {
+                return Tablebase.loss(maxWin + 1);
+            }
+            return NONE;
+        }
+
+        /**
+         * Takes in the value of one move's position, seen from the side that moves next
+         * there. A position in this table that was only resolved during the current pass
+         * counts as unknown, so the outcome does not depend on the order of the work.
+         */
+        private void consider(int value, boolean inTable) {
+            moves++;
+            if (value == UNRESOLVED || value == 0 ||
+                    (inTable && Tablebase.pliesToMate(value) >= plies)) {
+                allWins = false;
+            } else if (Tablebase.isLoss(value)) {
+                allWins = false;
+                minLoss = Math.min(minLoss, Tablebase.pliesToMate(value));
+            } else {
+                maxWin = Math.max(maxWin, Tablebase.pliesToMate(value));
+            }
+        }
+
+        /**
+         * Takes in the value of a double push that an enemy pawn can take en passant,
+         * worked out by {@link #enPassantValue}
+         *
+         * @param pawn  the index of the pawn that pushes
+         * @param child the index of the position after the push
+         * @return false if no en passant capture is legal, so the stored value stands
+         */
+        private boolean considerEnPassant(int pawn, int from, int to, int child) {
+            int us = pieces[pawn] / 6;
+            int them = us ^ 1;
+            int passed = (from + to) >>> 1;
+            int enemyPawn = BitBoard.pieceIndex(COLORS[them], ChessPiece.PieceType.PAWN);
+            int count = 0;
+            for (int j = 0; j < pieces.length; j++) {
+                int square = squares[j];
+                if (pieces[j] != enemyPawn || (square >>> 3) != (to >>> 3) || Math.abs(square - to) != 1) {
+                    continue;
+                }
+                long after = (occupied & ~(1L << from) & ~(1L << square)) | (1L << passed);
+                if (isAttacked(squares[kings[them]], us, after, pawn)) {
+                    continue;
+                }
+                int value = probeElsewhere(j, passed, pawn, enemyPawn, us);
+                if (value != 0) {
+                    // The side that takes is one ply further from the mate
+                    longest = Math.max(longest, Tablebase.pliesToMate(value) + 1);
+                }
+                captures[count++] = value;
+            }
+            if (count == 0) {
+                return false;
+            }
+            enPassant = true;
+            consider(enPassantValue(values[child], plies, captures, count), false);
+            return true;
+        }
+
+        /**
+         * Looks up the position after a capture or promotion in the table for its new
+         * material
+         *
+         * @param mover    the index of the piece that moves
+         * @param captured the index of the piece taken, or -1
+         * @param promoted the piece the mover is once it lands
+         */
+        private int probeElsewhere(int mover, int to, int captured, int promoted, int turn) {
+            for (int i = 0; i < pieces.length; i++) {
+                if (i != captured) {
+                    scratch.set(i == mover ? to : squares[i], i == mover ? promoted : pieces[i]);
+                }
+            }
+            int value = tablebase.probe(scratch, COLORS[turn]);
+            if (value == Tablebase.UNKNOWN) {
+                throw new IllegalStateException("Building " + name + " needs the " +
+                        Tablebase.materialName(Tablebase.materialKey(scratch)) + " table first");
+            }
+            for (int i = 0; i < pieces.length; i++) {
+                scratch.clear(i == mover ? to : squares[i]);
+            }
+            if (value != 0) {
+                longest = Math.max(longest, Tablebase.pliesToMate(value));
+            }
+            return value;
+        }
+
+        /**
+         * Marks for the next pass every unresolved position that reaches the loaded one
+         * with a move that stays in the table: any piece of the side that just moved,
+         * taken back to a square it could have come from
+         */
+        private void markPredecessors(int index) {
+            int them = (index & 1) ^ 1;
+            for (int i = 0; i < pieces.length; i++) {
+                if (pieces[i] / 6 != them) {
+                    continue;
+                }
+                int shift = 1 + 6 * i;
+                long origins = origins(pieces[i], squares[i]);
+                while (origins != 0) {
+                    int from = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    int predecessor = ((index & ~(63 << shift)) | (from << shift)) ^ 1;
+                    // The first pass has not reached every position yet, so it marks them all
+                    if (plies == 0 || values[predecessor] == UNRESOLVED) {
+                        setBit(nextPending, predecessor);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the empty squares a piece could have moved from to reach its square
+         * without capturing or promoting
+         */
+        private long origins(int piece, int square) {
+            if (BitBoard.typeOf(piece) != ChessPiece.PieceType.PAWN) {
+                return attacks(piece, square, occupied) & ~occupied;
+            }
+            int color = piece / 6;
+            int back = color == 0 ? -8 : 8;
+            int from = square + back;
+            if ((occupied & (1L << from)) != 0 || from < 8 || from >= 56) {
+                return 0;
+            }
+            long origins = 1L << from;
+            int doublePushRow = color == 0 ? 4 : 5;
+            if (BitBoard.row(square) == doublePushRow && (occupied & (1L << (from + back))) == 0) {
+                origins |= 1L << (from + back);
+            }
+            return origins;
+        }
+
+        /**
+         * @return the squares a piece can move to, ignoring whether its king is left in check
+         */
+        private long targets(int piece, int from) {
+            int color = piece / 6;
+            long own = 0;
+            for (int i = 0; i < pieces.length; i++) {
+                if (pieces[i] / 6 == color) {
+                    own |= 1L << squares[i];
+                }
+            }
+            if (BitBoard.typeOf(piece) != ChessPiece.PieceType.PAWN) {
+                return attacks(piece, from, occupied) & ~own;
+            }
+            long targets = Attacks.pawn(COLORS[color], from) & occupied & ~own;
+            int forward = color == 0 ? 8 : -8;
+            if ((occupied & (1L << (from + forward))) == 0) {
+                targets |= 1L << (from + forward);
+                int startRow = color == 0 ? 2 : 7;
+                if (BitBoard.row(from) == startRow && (occupied & (1L << (from + 2 * forward))) == 0) {
+                    targets |= 1L << (from + 2 * forward);
+                }
+            }
+            return targets;
+        }
+
+        /**
+         * @param captured the index of a piece to leave out, as it has just been taken, or -1
+         * @return true if any piece of the attacking color attacks the square
+         */
+        private boolean isAttacked(int square, int attacker, long occupied, int captured) {
+            for (int i = 0; i < pieces.length; i++) {
+                if (i != captured && pieces[i] / 6 == attacker &&
+                        attacks(pieces[i], squares[i], square, occupied)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the index of the piece on a square, or -1 if it is empty
+         */
+        private int pieceOn(int square) {
+            for (int i = 0; i < pieces.length; i++) {
+                if (squares[i] == square) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Values the position after a double push that an enemy pawn can take en passant.
+     * The table only holds that position without the right to take, so the captures,
+     * which leave the table, are folded into its stored value: the side to move there
+     * wins once either the stored position or a capture wins, by the shorter mate, and
+     * loses only once the stored position and every capture lose. As in a pass, a stored
+     * value resolved during the current pass counts as unknown. A stored checkmate or
+     * stalemate means the captures are the only moves.
+     *
+     * @param stored   the stored value of the position after the push, or
+     *                 {@link #UNRESOLVED}
+     * @param plies    the current pass
+     * @param captures the value of the position after each legal capture, seen from the
+     *                 side that pushed
+     * @param count    how many captures there are, at least one
+     * @return the value seen from the side to move after the push, {@link #UNRESOLVED} if
+     * it is not known yet, or 0 for a draw
+     */
+    static int enPassantValue(int stored, int plies, int[] captures, int count) {
+        int shortestWin = NONE;
+        int longestLoss = -1;
+        boolean allLosses = true;
+        for (int i = 0; i < count; i++) {
+            int value = captures[i];
+            if (Tablebase.isLoss(value)) {
+                shortestWin = Math.min(shortestWin, Tablebase.pliesToMate(value) + 1);
+                allLosses = false;
+            } else if (Tablebase.isWin(value)) {
+                longestLoss = Math.max(longestLoss, Tablebase.pliesToMate(value) + 1);
+            } else {
+                allLosses = false;
+            }
+        }
+        boolean known = plies > 0 && stored != UNRESOLVED &&
+                (stored == 0 || Tablebase.pliesToMate(stored) < plies);
+        boolean noMoves = known && (stored == 0 || stored == Tablebase.loss(0));
+        if (known && !noMoves && Tablebase.isWin(stored)) {
+            shortestWin = Math.min(shortestWin, Tablebase.pliesToMate(stored));
+        }
+        if (shortestWin != NONE) {
+            return Tablebase.win(shortestWin);
+        } else if (known && allLosses && (noMoves || Tablebase.isLoss(stored))) {
+            return Tablebase.loss(noMoves ? longestLoss : Math.max(longestLoss, Tablebase.pliesToMate(stored)));
+        }
+        return known ? 0 : UNRESOLVED;
+    }
+
+    /**
+     * Switches on the piece type's ordinal, which is much cheaper here than an enum switch
+     */
+    private static long attacks(int piece, int square, long occupied) {
+        return switch (piece % 6) {
+            case KING -> Attacks.king(square);
+            case QUEEN -> Attacks.queen(square, occupied);
+            case BISHOP -> Attacks.bishop(square, occupied);
+            case KNIGHT -> Attacks.knight(square);
+            case ROOK -> Attacks.rook(square, occupied);
+            default -> Attacks.pawn(COLORS[piece / 6], square);
+        };
+    }
+
+    /**
+     * Tests one attack without building the piece's whole attack set: a slider attacks a
+     * square on its lines when nothing stands between them
+     */
+    private static boolean attacks(int piece, int square, int target, long occupied) {
+        int type = piece % 6;
+        if (type == KING || type == KNIGHT || type > ROOK) {
+            return (attacks(piece, square, occupied) & (1L << target)) != 0;
+        }
+        int rows = Math.abs((square >>> 3) - (target >>> 3));
+        int columns = Math.abs((square & 7) - (target & 7));
+        boolean straight = rows == 0 || columns == 0;
+        boolean diagonal = rows == columns;
+        boolean aligned = type == QUEEN ? straight || diagonal : type == ROOK ? straight : diagonal;
+        return aligned && (Attacks.between(square, target) & occupied) == 0;
+    }
+
+    /**
+     * Sets a bit of a bitmap that other tasks may be setting bits of at the same time
+     */
+    private static void setBit(long[] bitmap, int index) {
+        BITS.getAndBitwiseOr(bitmap, index >>> 6, 1L << (index & 63));
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        return List.copyOf(all);
+    }
+}
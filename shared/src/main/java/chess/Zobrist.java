@@ -0,0 +1,83 @@
+package chess;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of the keys of
+ * every piece on its square, plus the side to move, castling rights and en passant
+ * file, so a move changes the key with a handful of XORs.
+ * <p>
+ * The keys come from a fixed seed so that keys are the same in every process, which
+ * lets them be stored and compared across the client and server.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        long seed = 0x240C4E55L;
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                seed = nextSeed(seed);
+                PIECE_SQUARE[piece][square] = mix(seed);
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            seed = nextSeed(seed);
+            CASTLING[rights] = rights == 0 ? 0 : mix(seed);
+        }
+        for (int file = 0; file < 8; file++) {
+            seed = nextSeed(seed);
+            EN_PASSANT_FILE[file] = mix(seed);
+        }
+        BLACK_TO_MOVE = mix(nextSeed(seed));
+    }
+
+    private Zobrist() { }
+
+    private static long nextSeed(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * SplitMix64 finalizer, which turns consecutive seeds into well-spread keys
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param pieceIndex the 0-11 piece index used by {@link BitBoard}
+     * @param square     the 0-63 square the piece is on
+     * @return the key for that piece standing on that square
+     */
+    public static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex][square];
+    }
+
+    /**
+     * @param rights the castling rights as a 4-bit set
+     * @return the key for the castling rights, which is 0 when no side can castle
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @param column the column (1-8) of the en passant target square
+     * @return the key for an en passant capture being possible on that column
+     */
+    public static long enPassant(int column) {
+        return EN_PASSANT_FILE[column - 1];
+    }
+
+    /**
+     * @return the key that is XORed in when it is black's turn
+     */
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+}
@@ -0,0 +1,13 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+/**
+ * A move an {@link OpeningBook} knows for a position
+ *
+ * @param move   the move
+ * @param weight how strongly the book recommends it, relative to the other moves for the
+ *               same position
+ */
+public record BookEntry(ChessMove move, int weight) {
+}
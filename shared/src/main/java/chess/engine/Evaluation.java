@@ -0,0 +1,37 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a position, in centipawns.
+ * <p>
+ * The score is material plus piece-square bonuses, blended between a middlegame and an
+ * endgame table by how much non-pawn material is left. The board keeps both totals and
+ * the phase up to date as moves are made and taken back, so evaluating a position is a
+ * few multiplications rather than a scan of the board.
+ */
+public final class Evaluation {
+
+    /**
+     * Material value of each piece type, in {@link ChessPiece.PieceType} order, for
+     * ordering captures
+     */
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluation() { }
+
+    /**
+     * @param board the position to evaluate
+     * @param color the team to evaluate for
+     * @return the score from the team's point of view
+     */
+    public static int evaluate(BitBoard board, ChessGame.TeamColor color) {
+        int phase = Math.min(board.phase(), PieceSquareTables.MAX_PHASE);
+        int score = (board.middlegameScore() * phase +
+                board.endgameScore() * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return color == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
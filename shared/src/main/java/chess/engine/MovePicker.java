@@ -0,0 +1,196 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+
+/**
+ * Hands out the legal moves of a position one at a time, best guesses first, generating
+ * them in stages so a node that is cut off early never pays for the moves it did not try:
+ * <ol>
+ *     <li>the hash move from the transposition table, if it is legal here</li>
+ *     <li>captures and promotions, most valuable victim first and, among equal
+ *     victims, least valuable attacker first (MVV-LVA)</li>
+ *     <li>the two killer moves, quiet moves that caused a cutoff at this ply elsewhere
+ *     in the tree</li>
+ *     <li>the remaining quiet moves, by how often they have caused cutoffs anywhere
+ *     (the history heuristic)</li>
+ * </ol>
+ * Killers are only known to be legal once the quiet moves are generated, so they are
+ * ranked at the head of the quiet stage rather than tried before it. Each stage is
+ * sorted lazily: the best remaining move is picked out as it is asked for. One picker is
+ * kept per ply and reused, so no stage allocates.
+ */
+final class MovePicker {
+
+    private static final int HASH = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int CAPTURES = 2;
+    private static final int GENERATE_QUIETS = 3;
+    private static final int QUIETS = 4;
+    private static final int DONE = 5;
+
+    private final MoveList moves = new MoveList();
+    private final int[] scores = new int[MoveList.CAPACITY];
+    private final int[][] history;
+
+    private ChessGame game;
+    private BitBoard board;
+    private ChessGame.TeamColor us;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private boolean capturesOnly;
+    private int stage;
+    private int index;
+
+    /**
+     * @param history the history scores the quiet stage is ordered by, indexed by team and
+     *                then {@code from * 64 + to}; shared with the search that updates it
+     */
+    MovePicker(int[][] history) {
+        this.history = history;
+    }
+
+    /**
+     * Starts picking moves for a new position
+     *
+     * @param hashMove     the move to try first, or {@link Move#NONE}
+     * @param capturesOnly whether to stop after the captures and promotions
+     */
+    void reset(ChessGame game, ChessGame.TeamColor us, int hashMove, int firstKiller, int secondKiller,
+               boolean capturesOnly) {
+        this.game = game;
+        this.board = game.getBoard().getBitBoard();
+        this.us = us;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.capturesOnly = capturesOnly;
+        stage = HASH;
+    }
+
+    /**
+     * @return the next move to search, or {@link Move#NONE} once every move has been given
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case HASH -> {
+                    stage = GENERATE_CAPTURES;
+                    if (hashMove != Move.NONE && isLegalHashMove()) {
+                        return hashMove;
+                    }
+                    hashMove = Move.NONE;
+                }
+                case GENERATE_CAPTURES -> {
+                    startCaptures();
+                    stage = CAPTURES;
+                }
+                case CAPTURES -> {
+                    int move = pickBest();
+                    if (move != Move.NONE) {
+                        return move;
+                    }
+                    stage = capturesOnly ? DONE : GENERATE_QUIETS;
+                }
+                case GENERATE_QUIETS -> {
+                    startQuiets();
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    int move = pickBest();
+                    if (move != Move.NONE) {
+                        return move;
+                    }
+                    stage = DONE;
+                }
+                default -> {
+                    return Move.NONE;
+                }
+            }
+        }
+    }
+
+    private boolean isLegalHashMove() {
+        if (capturesOnly && !Move.isCapture(hashMove) && !Move.isPromotion(hashMove)) {
+            return false;
+        }
+        int piece = board.pieceAt(Move.from(hashMove));
+        if (piece == BitBoard.NO_PIECE || BitBoard.colorOf(piece) != us) {
+            return false;
+        }
+        MoveGenerator.generate(game, Move.from(hashMove), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == hashMove) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startCaptures() {
+        MoveGenerator.generateCaptures(game, us, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            scores[i] = captureScore(moves.get(i));
+        }
+        index = 0;
+    }
+
+    private void startQuiets() {
+        MoveGenerator.generateQuiets(game, us, moves);
+        int[] teamHistory = history[us.ordinal()];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (move == firstKiller) {
+                scores[i] = Integer.MAX_VALUE;
+            } else if (move == secondKiller) {
+                scores[i] = Integer.MAX_VALUE - 1;
+            } else {
+                scores[i] = teamHistory[Move.from(move) * 64 + Move.to(move)];
+            }
+        }
+        index = 0;
+    }
+
+    /**
+     * Swaps the best-scoring remaining move of the stage to the front and returns it,
+     * skipping the hash move since it was already given
+     */
+    private int pickBest() {
+        while (index < moves.size()) {
+            int best = index;
+            for (int i = index + 1; i < moves.size(); i++) {
+                if (scores[i] > scores[best]) {
+                    best = i;
+                }
+            }
+            int move = moves.get(best);
+            moves.swap(index, best);
+            scores[best] = scores[index];
+            index++;
+            if (move != hashMove) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    private int captureScore(int move) {
+        int victim = board.pieceAt(Move.to(move));
+        int score = 0;
+        if (victim != BitBoard.NO_PIECE) {
+            score = Evaluation.PIECE_VALUES[BitBoard.typeOf(victim).ordinal()] * 8;
+        } else if (Move.isCapture(move)) {
+            // An en passant capture, whose pawn is not on the square it lands on
+            score = Evaluation.PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()] * 8;
+        }
+        if (Move.isPromotion(move)) {
+            score += Evaluation.PIECE_VALUES[Move.promotion(move).ordinal()] * 8;
+        }
+        return score - Evaluation.PIECE_VALUES[BitBoard.typeOf(board.pieceAt(Move.from(move))).ordinal()] / 100;
+    }
+}
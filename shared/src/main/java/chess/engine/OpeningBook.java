@@ -0,0 +1,217 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reads an opening book in the Polyglot {@code .bin} layout: a file of 16-byte
+ * big-endian entries sorted by position key, each holding the key (8 bytes), a move
+ * (2 bytes), a weight (2 bytes) and a learning value (4 bytes, unused here).
+ * <p>
+ * The file is memory-mapped rather than read, so opening even a large book is
+ * immediate and costs next to no heap: a lookup binary-searches the mapped entries and
+ * only touches the pages it needs, which the operating system caches and shares
+ * between processes. Lookups use absolute reads, so one book can be used from any
+ * number of threads at once.
+ * <p>
+ * Positions are looked up by their {@link PolyglotKey} by default, so books made by
+ * other Polyglot tools can be read as they are, and books built with
+ * {@link OpeningBookBuilder} can be read by them. Books keyed some other way can be read
+ * by passing the function that computes their keys.
+ */
+public final class OpeningBook implements AutoCloseable {
+
+    public static final int ENTRY_BYTES = 16;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {null, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN};
+
+    private final FileChannel channel;
+    private final ByteBuffer entries;
+    private final int count;
+    private final ToLongFunction<ChessGame> keyFunction;
+
+    /**
+     * @param file        the book to open
+     * @param keyFunction computes the key a position is stored under
+     * @throws IOException if the file cannot be mapped or is not a whole number of entries
+     */
+    public OpeningBook(Path file, ToLongFunction<ChessGame> keyFunction) throws IOException {
+        this.keyFunction = keyFunction;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0) {
+                throw new IOException("Book size " + size + " is not a multiple of " + ENTRY_BYTES + " bytes");
+            } else if (size > Integer.MAX_VALUE) {
+                throw new IOException("Book is larger than 2 GB");
+            }
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            count = (int) (size / ENTRY_BYTES);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public OpeningBook(Path file) throws IOException {
+        this(file, PolyglotKey::of);
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Finds the book moves for a position. Moves that are not legal in the position, as
+     * can happen when two positions share a key, are left out.
+     *
+     * @param game the position to look up
+     * @return the book's moves for the position, highest weight first, or an empty list
+     */
+    public List<BookEntry> entries(ChessGame game) {
+        long key = keyFunction.applyAsLong(game);
+        List<BookEntry> found = new ArrayList<>();
+        Collection<ChessMove> legalMoves = null;
+        for (int index = firstEntry(key); index < count && entries.getLong(index * ENTRY_BYTES) == key; index++) {
+            int offset = index * ENTRY_BYTES;
+            ChessMove move = decode(entries.getShort(offset + 8) & 0xFFFF, game);
+            int weight = entries.getShort(offset + 10) & 0xFFFF;
+            if (legalMoves == null) {
+                legalMoves = game.getStatus().legalMoves();
+            }
+            if (legalMoves.contains(move)) {
+                found.add(new BookEntry(move, weight));
+            }
+        }
+        found.sort(Comparator.comparingInt(BookEntry::weight).reversed());
+        return found;
+    }
+
+    /**
+     * @param game the position to look up
+     * @return the book move with the highest weight, or null if the position is not in the book
+     */
+    public ChessMove bestMove(ChessGame game) {
+        List<BookEntry> found = entries(game);
+        return found.isEmpty() ? null : found.get(0).move();
+    }
+
+    /**
+     * Picks a book move at random, each with a chance in proportion to its weight, so
+     * play out of the book varies from game to game
+     *
+     * @param game   the position to look up
+     * @param random the source of randomness
+     * @return the chosen move, or null if the position has no book move with any weight
+     */
+    public ChessMove randomMove(ChessGame game, Random random) {
+        List<BookEntry> found = entries(game);
+        int total = 0;
+        for (BookEntry entry : found) {
+            total += entry.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        int pick = random.nextInt(total);
+        for (BookEntry entry : found) {
+            pick -= entry.weight();
+            if (pick < 0) {
+                return entry.move();
+            }
+        }
+        throw new IllegalStateException("Weights changed while picking");
+    }
+
+    /**
+     * Closes the file. The mapping itself is released once the book is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return the index of the first entry whose key is not below the given key, comparing
+     * keys as unsigned numbers the way Polyglot sorts them
+     */
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(middle * ENTRY_BYTES), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Packs a move the Polyglot way: destination column and row in the low six bits, the
+     * start column and row above them, then the promotion piece. Castling is stored as the
+     * king moving onto its own rook.
+     *
+     * @param move the move to encode
+     * @param game the position the move is played in
+     * @return the 16-bit Polyglot move
+     */
+    static int encode(ChessMove move, ChessGame game) {
+        ChessPosition from = move.getStartPosition();
+        ChessPosition to = move.getEndPosition();
+        int toColumn = to.getColumn();
+        if (isCastling(from, to, game)) {
+            toColumn = toColumn == 7 ? 8 : 1;
+        }
+        int promotion = 0;
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == move.getPromotionPiece()) {
+                promotion = i;
+            }
+        }
+        return (toColumn - 1) | ((to.getRow() - 1) << 3) | ((from.getColumn() - 1) << 6) |
+                ((from.getRow() - 1) << 9) | (promotion << 12);
+    }
+
+    /**
+     * Unpacks a Polyglot move, turning a king's move onto its own rook back into castling
+     */
+    static ChessMove decode(int move, ChessGame game) {
+        ChessPosition from = ChessPosition.of(((move >>> 9) & 7) + 1, ((move >>> 6) & 7) + 1);
+        ChessPosition to = ChessPosition.of(((move >>> 3) & 7) + 1, (move & 7) + 1);
+        ChessPiece piece = game.getBoard().getPiece(from);
+        ChessPiece target = game.getBoard().getPiece(to);
+        if (piece != null && target != null && piece.getPieceType() == ChessPiece.PieceType.KING &&
+                target.getPieceType() == ChessPiece.PieceType.ROOK && target.getTeamColor() == piece.getTeamColor()) {
+            to = ChessPosition.of(to.getRow(), to.getColumn() == 8 ? 7 : 3);
+        }
+        int promotion = (move >>> 12) & 7;
+        return new ChessMove(from, to, promotion < PROMOTIONS.length ? PROMOTIONS[promotion] : null);
+    }
+
+    private static boolean isCastling(ChessPosition from, ChessPosition to, ChessGame game) {
+        ChessPiece piece = game.getBoard().getPiece(from);
+        return piece != null && piece.getPieceType() == ChessPiece.PieceType.KING &&
+                Math.abs(to.getColumn() - from.getColumn()) == 2;
+    }
+}
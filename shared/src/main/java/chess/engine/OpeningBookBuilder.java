@@ -0,0 +1,70 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects moves played from positions and writes them out as an {@link OpeningBook}.
+ * Adding the same move from the same position again adds to its weight, so feeding in
+ * the moves of many games weights each move by how often it was played.
+ */
+public final class OpeningBookBuilder {
+
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final ToLongFunction<ChessGame> keyFunction;
+    private final Map<Long, Map<Integer, Integer>> positions = new TreeMap<>(Long::compareUnsigned);
+
+    /**
+     * @param keyFunction computes the key a position is stored under; it has to match the
+     *                    one the book will be read with
+     */
+    public OpeningBookBuilder(ToLongFunction<ChessGame> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    public OpeningBookBuilder() {
+        this(PolyglotKey::of);
+    }
+
+    /**
+     * @param game   the position the move is played from
+     * @param move   the move
+     * @param weight how much to add to the move's weight; weights stop growing at 65535
+     */
+    public void add(ChessGame game, ChessMove move, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Book weights cannot be negative");
+        }
+        positions.computeIfAbsent(keyFunction.applyAsLong(game), key -> new TreeMap<>())
+                .merge(OpeningBook.encode(move, game), weight, (a, b) -> Math.min(MAX_WEIGHT, a + b));
+    }
+
+    /**
+     * Writes every move added so far, sorted by position key as the reader expects
+     *
+     * @param file the book file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (Map.Entry<Long, Map<Integer, Integer>> position : positions.entrySet()) {
+                for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                    out.writeLong(position.getKey());
+                    out.writeShort(move.getKey());
+                    out.writeShort(move.getValue());
+                    out.writeInt(0);
+                }
+            }
+        }
+    }
+}
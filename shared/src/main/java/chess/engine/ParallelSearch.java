@@ -0,0 +1,162 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches one position on several threads at once using Lazy SMP: every thread runs an
+ * ordinary {@link Search} of the same position, and they only cooperate through a shared
+ * {@link TranspositionTable}. Each thread finds the others' results in the table and skips
+ * work they have already done, so together they reach a given depth sooner than one
+ * thread would. Helper threads start at staggered depths so they do not all search the
+ * same tree in lockstep.
+ * <p>
+ * The search on the calling thread decides when to stop, and its limits apply to the
+ * whole search; helpers are stopped as soon as it finishes. Close the search to shut
+ * its helper threads down.
+ */
+public class ParallelSearch implements AutoCloseable {
+
+    private final TranspositionTable table;
+    private final Search main;
+    private final List<Search> helpers = new ArrayList<>();
+    private final ExecutorService executor;
+    private OpeningBook book;
+
+    /**
+     * @param threads the total number of threads to search with, including the caller's
+     * @param table   the transposition table the threads share
+     */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread");
+        }
+        this.table = table;
+        main = new Search(table);
+        for (int i = 1; i < threads; i++) {
+            helpers.add(new Search(table));
+        }
+        executor = helpers.isEmpty() ? null : Executors.newFixedThreadPool(helpers.size(), runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ParallelSearch(int threads) {
+        this(threads, new TranspositionTable());
+    }
+
+    public int threads() {
+        return helpers.size() + 1;
+    }
+
+    /**
+     * @param book the book to play from while a position is in it, or null to always search
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * @param tablebase the endgame tables to score positions from, or null to search every
+     *                  position
+     */
+    public void setTablebase(Tablebase tablebase) {
+        main.setTablebase(tablebase);
+        for (Search helper : helpers) {
+            helper.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Searches the game's position for the side to move on every thread, or plays the
+     * opening book's highest weighted move if the position is in the book. The game itself
+     * is not changed.
+     *
+     * @param root   the position to search
+     * @param limits when to stop searching
+     * @return the best move and line found by the calling thread's search, with the
+     * nodes visited by every thread
+     */
+    public synchronized SearchResult search(ChessGame root, SearchLimits limits) {
+        ChessMove bookMove = book == null ? null : book.bestMove(root);
+        if (bookMove != null) {
+            return SearchResult.fromBook(bookMove);
+        }
+        table.newSearch();
+        main.resetStop();
+        SearchLimits helperLimits = new SearchLimits(Search.MAX_PLY - 1, limits.timeMillis(), 0);
+        List<Future<SearchResult>> futures = new ArrayList<>(helpers.size());
+        for (int i = 0; i < helpers.size(); i++) {
+            Search helper = helpers.get(i);
+            int firstDepth = 1 + (i + 1) % 2;
+            helper.resetStop();
+            futures.add(executor.submit(() -> helper.search(root, helperLimits, firstDepth)));
+        }
+
+        SearchResult result;
+        try {
+            result = main.search(root, limits, 1);
+        } finally {
+            for (Search helper : helpers) {
+                helper.stop();
+            }
+        }
+        long nodes = result.nodes();
+        for (Future<SearchResult> future : futures) {
+            nodes += join(future).nodes();
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, result.timeMillis(),
+                result.principalVariation());
+    }
+
+    /**
+     * Ends the running search as soon as possible on every thread
+     */
+    public void stop() {
+        main.stop();
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for a helper even if this thread is interrupted, since the helper has already
+     * been told to stop and will finish quickly
+     */
+    private static SearchResult join(Future<SearchResult> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Search helper failed", e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+import chess.Tablebase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the best move in a position with a negamax alpha-beta search. The search deepens
+ * one ply at a time until a {@link SearchLimits} limit is reached, and each leaf is
+ * extended with a quiescence search over captures and promotions so positions are only
+ * evaluated once they are quiet. Moves are tried in the order a {@link MovePicker} gives
+ * them, which learns from the cutoffs the search finds through killer moves and a
+ * history table. A position that repeats an earlier one, in the game or along the line
+ * being searched, or that the fifty-move rule has drawn, scores as a draw. Positions in
+ * an endgame {@link Tablebase} are scored from it rather than searched.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}, which several searches can share.
+ * A search works on its own copy of the game and never allocates once it is running.
+ * An instance can be reused for any number of searches, but runs one at a time;
+ * {@link #stop()} may be called from another thread to end the current one early.
+ */
+public class Search {
+
+    public static final int MAX_PLY = 64;
+    public static final int INFINITY = 30000;
+    public static final int MATE = 29000;
+
+    /**
+     * Scores further from zero than this are mates, whether found by searching, which
+     * reaches at most {@link #MAX_PLY} plies, or read from a tablebase, which may see a
+     * mate {@link Tablebase#LONGEST_MATE} plies beyond that
+     */
+    private static final int MATE_BOUND = MATE - MAX_PLY - Tablebase.LONGEST_MATE;
+
+    /**
+     * How many nodes are visited between checks of the clock and the stop flag
+     */
+    private static final int CHECK_INTERVAL = 2048;
+
+    private final TranspositionTable table;
+    private OpeningBook book;
+    private Tablebase tablebase;
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    private final MoveList rootMoves = new MoveList();
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[2][64 * 64];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private int[] previousPv = new int[0];
+
+    private ChessGame game;
+    private BitBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private volatile boolean stopped;
+
+    /**
+     * Creates a search with a transposition table of its own
+     */
+    public Search() {
+        this(new TranspositionTable());
+    }
+
+    /**
+     * @param table the transposition table to use, which may be shared with other searches
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            pickers[i] = new MovePicker(history);
+        }
+    }
+
+    /**
+     * @param score a score returned by a search
+     * @return true if the score means one side can force checkmate
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) > MATE_BOUND;
+    }
+
+    /**
+     * @param book the book to play from while a position is in it, or null to always search
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * @param tablebase the endgame tables to score positions from, or null to search every
+     *                  position
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Searches the game's position for the side to move, or plays the opening book's
+     * highest weighted move if the position is in the book. The game itself is not changed.
+     *
+     * @param root   the position to search
+     * @param limits when to stop searching
+     * @return the best move and line found in the deepest finished iteration
+     */
+    public SearchResult search(ChessGame root, SearchLimits limits) {
+        ChessMove bookMove = book == null ? null : book.bestMove(root);
+        if (bookMove != null) {
+            return SearchResult.fromBook(bookMove);
+        }
+        stopped = false;
+        table.newSearch();
+        return search(root, limits, 1);
+    }
+
+    /**
+     * Runs a search without resetting the stop flag or starting a new table generation,
+     * for a search that is one of several working on the same position
+     *
+     * @param firstDepth the depth of the first iteration
+     */
+    SearchResult search(ChessGame root, SearchLimits limits, int firstDepth) {
+        long start = System.currentTimeMillis();
+        game = new ChessGame(root);
+        board = game.getBoard().getBitBoard();
+        nodes = 0;
+        nodeLimit = limits.nodes() == 0 ? Long.MAX_VALUE : limits.nodes();
+        deadline = limits.timeMillis() == 0 ? Long.MAX_VALUE : start + limits.timeMillis();
+        int maxDepth = limits.depth() == 0 ? MAX_PLY - 1 : Math.min(limits.depth(), MAX_PLY - 1);
+        previousPv = new int[0];
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, Move.NONE);
+        }
+        for (int[] teamHistory : history) {
+            for (int i = 0; i < teamHistory.length; i++) {
+                teamHistory[i] /= 8;
+            }
+        }
+
+        int bestScore = 0;
+        int finishedDepth = 0;
+        game.legalMoves(game.getTeamTurn(), rootMoves);
+        if (rootMoves.isEmpty()) {
+            bestScore = game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+        }
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth && !rootMoves.isEmpty(); depth++) {
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (stopped) {
+                break;
+            }
+            bestScore = score;
+            finishedDepth = depth;
+            previousPv = new int[pvLength[0]];
+            System.arraycopy(pv[0], 0, previousPv, 0, pvLength[0]);
+            long elapsed = System.currentTimeMillis() - start;
+            if (isMateScore(score) || rootMoves.size() == 1 ||
+                    (limits.timeMillis() != 0 && elapsed * 2 > limits.timeMillis())) {
+                break;
+            }
+        }
+        if (finishedDepth == 0 && !rootMoves.isEmpty()) {
+            previousPv = new int[] {rootMoves.get(0)};
+        }
+
+        List<ChessMove> line = new ArrayList<>(previousPv.length);
+        for (int move : previousPv) {
+            line.add(Move.toChessMove(move));
+        }
+        ChessMove bestMove = line.isEmpty() ? null : line.get(0);
+        return new SearchResult(bestMove, bestScore, finishedDepth, nodes,
+                System.currentTimeMillis() - start, List.copyOf(line));
+    }
+
+    /**
+     * Ends the running search as soon as possible; it returns the result of the last
+     * iteration it finished
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Clears the stop flag ahead of a {@link #search(ChessGame, SearchLimits, int)} call
+     */
+    void resetStop() {
+        stopped = false;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (visit()) {
+            return 0;
+        }
+        ChessGame.TeamColor us = game.getTeamTurn();
+        boolean inCheck = game.isInCheck(us);
+        if (inCheck) {
+            depth++;
+        }
+        if (ply > 0 && (game.isFiftyMoveDraw() || game.repetitions() > 0)) {
+            return 0;
+        }
+        if (ply > 0 && tablebase != null) {
+            int value = tablebase.probe(game);
+            if (value != Tablebase.UNKNOWN) {
+                return tablebaseScore(value, ply);
+            }
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluation.evaluate(board, us);
+        }
+
+        long key = game.getPositionKey();
+        long entry = table.probe(key);
+        int hashMove = ply == 0 && previousPv.length > 0 ? previousPv[0] : Move.NONE;
+        if (entry != TranspositionTable.MISS) {
+            if (hashMove == Move.NONE) {
+                hashMove = TranspositionTable.move(entry);
+            }
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT ||
+                        (bound == TranspositionTable.LOWER && score >= beta) ||
+                        (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.reset(game, us, hashMove, killers[ply][0], killers[ply][1], false);
+        int originalAlpha = alpha;
+        int bestMove = Move.NONE;
+        int best = -INFINITY;
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            game.doMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                            recordCutoff(us, ply, move, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (bestMove == Move.NONE) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER :
+                best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bound == TranspositionTable.UPPER ? Move.NONE : bestMove, scoreToTable(best, ply),
+                depth, bound);
+        return best;
+    }
+
+    /**
+     * Turns a tablebase value into a search score, a mate score when one side is mated
+     */
+    private static int tablebaseScore(int value, int ply) {
+        if (Tablebase.isWin(value)) {
+            return MATE - ply - Tablebase.pliesToMate(value);
+        } else if (Tablebase.isLoss(value)) {
+            return -MATE + ply + Tablebase.pliesToMate(value);
+        }
+        return 0;
+    }
+
+    /**
+     * Mate scores are stored as the distance to mate from the stored position rather
+     * than from the root, so they stay right when the position is reached at another ply
+     */
+    static int scoreToTable(int score, int ply) {
+        if (score > MATE_BOUND) {
+            return score + ply;
+        } else if (score < -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    static int scoreFromTable(int score, int ply) {
+        if (score > MATE_BOUND) {
+            return score - ply;
+        } else if (score < -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (visit()) {
+            return 0;
+        }
+        ChessGame.TeamColor us = game.getTeamTurn();
+        if (ply >= MAX_PLY) {
+            return Evaluation.evaluate(board, us);
+        }
+        boolean inCheck = game.isInCheck(us);
+
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = Evaluation.evaluate(board, us);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+        MovePicker picker = pickers[ply];
+        picker.reset(game, us, Move.NONE, Move.NONE, Move.NONE, !inCheck);
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            game.doMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (inCheck && best == -INFINITY) {
+            return -MATE + ply;
+        }
+        return best;
+    }
+
+    /**
+     * Counts a node and checks the limits every {@link #CHECK_INTERVAL} nodes
+     *
+     * @return true if the search has to stop
+     */
+    private boolean visit() {
+        nodes++;
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0 &&
+                (nodes >= nodeLimit || System.currentTimeMillis() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * Remembers a quiet move that caused a beta cutoff: as a killer for this ply, and in
+     * the history table with a bonus that grows with the depth it was found at
+     */
+    private void recordCutoff(ChessGame.TeamColor us, int ply, int move, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] teamHistory = history[us.ordinal()];
+        int index = Move.from(move) * 64 + Move.to(move);
+        teamHistory[index] += depth * depth;
+        if (teamHistory[index] > 1 << 20) {
+            for (int i = 0; i < teamHistory.length; i++) {
+                teamHistory[i] /= 2;
+            }
+        }
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = pvLength[ply + 1];
+    }
+}
@@ -0,0 +1,33 @@
+package chess.engine;
+
+/**
+ * How far a search may go before it stops and reports its best move. A search stops at
+ * whichever limit it reaches first; a limit of zero means no limit of that kind.
+ *
+ * @param depth        the deepest iteration to search, in plies
+ * @param timeMillis   the wall-clock budget in milliseconds
+ * @param nodes        the number of positions that may be visited
+ */
+public record SearchLimits(int depth, long timeMillis, long nodes) {
+
+    public SearchLimits {
+        if (depth < 0 || timeMillis < 0 || nodes < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative");
+        }
+        if (depth == 0 && timeMillis == 0 && nodes == 0) {
+            throw new IllegalArgumentException("A search needs at least one limit");
+        }
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, timeMillis, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, 0, nodes);
+    }
+}
@@ -0,0 +1,37 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * What a search found in the deepest iteration it finished, or the move an opening book
+ * gave, which is reported at depth 0 with no nodes searched
+ *
+ * @param bestMove           the move to play, or null if the side to move has no legal moves
+ * @param score              the position's value in centipawns for the side to move, or a
+ *                           mate score; see {@link Search#isMateScore}
+ * @param depth              the depth of the last finished iteration
+ * @param nodes              the number of positions visited, including unfinished iterations
+ * @param timeMillis         how long the search took
+ * @param principalVariation the line of play both sides are expected to follow, starting
+ *                           with the best move
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long timeMillis,
+                           List<ChessMove> principalVariation) {
+
+    /**
+     * @param move a move taken from an {@link OpeningBook}
+     * @return the result of playing the book move without searching
+     */
+    public static SearchResult fromBook(ChessMove move) {
+        return new SearchResult(move, 0, 0, 0, 0, List.of(move));
+    }
+
+    /**
+     * @return the number of positions visited per second
+     */
+    public long nodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+}
@@ -0,0 +1,164 @@
+package chess.engine;
+
+import chess.Move;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size table of search results keyed by {@link chess.ChessGame#getPositionKey()},
+ * which any number of searches on any number of threads can read and write at once.
+ * <p>
+ * Entries live in one flat {@code long[]}, two longs each: the position key XORed with
+ * the data, then the data itself. Nothing is locked. When two threads write the same
+ * slot at once a reader can see the first long of one write and the second of the
+ * other, but then undoing the XOR no longer gives back the key being looked up, so the
+ * torn entry is treated as a miss rather than returned with another position's data.
+ * <p>
+ * The data long packs the best move (bits 0-16), score (bits 17-32), depth (bits 33-40),
+ * bound (bits 41-42) and the generation of the search that stored it (bits 43-50).
+ */
+public final class TranspositionTable {
+
+    public static final int DEFAULT_MEGABYTES = 16;
+
+    /**
+     * The stored score is only an upper bound: every move failed low
+     */
+    public static final int UPPER = 1;
+    /**
+     * The stored score is only a lower bound: a move failed high and cut the search off
+     */
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    /**
+     * What {@link #probe} returns for a position that is not in the table
+     */
+    public static final long MISS = 0;
+
+    private static final int MOVE_BITS = 17;
+    private static final int SCORE_SHIFT = 17;
+    private static final int DEPTH_SHIFT = 33;
+    private static final int BOUND_SHIFT = 41;
+    private static final int GENERATION_SHIFT = 43;
+
+    private final long[] entries;
+    private final int mask;
+    private int generation;
+
+    /**
+     * @param megabytes the memory the table may use; it is rounded down to a power of two
+     *                  number of entries
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > 1024) {
+            throw new IllegalArgumentException("Transposition table size must be 1-1024 MB");
+        }
+        int count = Integer.highestOneBit((int) ((long) megabytes * 1024 * 1024 / 16));
+        entries = new long[count * 2];
+        mask = count - 1;
+    }
+
+    public TranspositionTable() {
+        this(DEFAULT_MEGABYTES);
+    }
+
+    /**
+     * Marks the start of a new search, so entries left by earlier searches are the first
+     * to be replaced
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    /**
+     * @param key the position key to look up
+     * @return the entry's data, to be read with {@link #move}, {@link #score}, {@link #depth}
+     * and {@link #bound}, or {@link #MISS}
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = entries[index + 1];
+        return (entries[index] ^ data) == key ? data : MISS;
+    }
+
+    /**
+     * Records a search result for a position. A slot holding another position is only
+     * taken over if its entry is from an earlier search or was searched no deeper.
+     *
+     * @param key   the position key
+     * @param move  the best move found, or {@link Move#NONE}
+     * @param score the score, with mate scores made relative to this position
+     * @param depth the depth searched from this position
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long oldData = entries[index + 1];
+        boolean samePosition = (entries[index] ^ oldData) == key;
+        if (oldData != MISS && !samePosition && generation(oldData) == generation && depth < depth(oldData)) {
+            return;
+        }
+        if (samePosition && move == Move.NONE) {
+            move = move(oldData);
+        }
+        long data = (move & ((1L << MOVE_BITS) - 1)) |
+                ((long) (score & 0xFFFF) << SCORE_SHIFT) |
+                ((long) (depth & 0xFF) << DEPTH_SHIFT) |
+                ((long) bound << BOUND_SHIFT) |
+                ((long) generation << GENERATION_SHIFT);
+        entries[index] = key ^ data;
+        entries[index + 1] = data;
+    }
+
+    /**
+     * @return roughly how full the table is with entries from the current search, in
+     * parts per thousand, judged from the first thousand slots
+     */
+    public int hashfull() {
+        int used = 0;
+        int sample = Math.min(1000, entries.length / 2);
+        for (int i = 0; i < sample; i++) {
+            long data = entries[i * 2 + 1];
+            if (data != MISS && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public int capacity() {
+        return entries.length / 2;
+    }
+
+    public static int move(long data) {
+        return (int) (data & ((1L << MOVE_BITS) - 1));
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & 0xFF;
+    }
+
+    private int index(long key) {
+        return ((int) (key >>> 32) & mask) << 1;
+    }
+}
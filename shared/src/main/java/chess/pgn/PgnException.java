@@ -0,0 +1,24 @@
+package chess.pgn;
+
+import java.io.IOException;
+
+/**
+ * Indicates a game in a PGN file could not be read. The reader skips the rest of the
+ * broken game, so reading can carry on with the next one.
+ */
+public class PgnException extends IOException {
+
+    private final int lineNumber;
+
+    public PgnException(String message, int lineNumber) {
+        super("Line " + lineNumber + ": " + message);
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * @return the line of the file the problem was found on, counting from 1
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+}
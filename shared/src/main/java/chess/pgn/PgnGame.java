@@ -0,0 +1,71 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game of a PGN file: its tag pairs, the moves played from its starting position and
+ * its result. Comments, variations and annotations are not kept.
+ *
+ * @param tags   the tag pairs, such as {@code Event} and {@code White}, in the order they
+ *               were read
+ * @param moves  the moves played, in order
+ * @param result how the game ended: {@link #WHITE_WINS}, {@link #BLACK_WINS},
+ *               {@link #DRAW} or {@link #UNFINISHED}
+ */
+public record PgnGame(Map<String, String> tags, List<ChessMove> moves, String result) {
+
+    public static final String WHITE_WINS = "1-0";
+    public static final String BLACK_WINS = "0-1";
+    public static final String DRAW = "1/2-1/2";
+    public static final String UNFINISHED = "*";
+
+    public PgnGame {
+        tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        moves = List.copyOf(moves);
+        if (!isResult(result)) {
+            throw new IllegalArgumentException("Not a PGN result: " + result);
+        }
+    }
+
+    /**
+     * @param name the tag's name, such as {@code Site}
+     * @return the tag's value, or null if the game does not have the tag
+     */
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * @return the position the game starts from: the one in its {@code FEN} tag, or the
+     * standard starting position if it has none
+     * @throws IllegalArgumentException if the FEN tag is not a valid position
+     */
+    public ChessGame startingPosition() {
+        String fen = tags.get("FEN");
+        return fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+    }
+
+    /**
+     * @return the game's final position, after playing every move from the start
+     * @throws InvalidMoveException if one of the moves is not legal
+     */
+    public ChessGame replay() throws InvalidMoveException {
+        ChessGame game = startingPosition();
+        for (ChessMove move : moves) {
+            game.makeMove(move);
+        }
+        return game;
+    }
+
+    static boolean isResult(CharSequence text) {
+        return WHITE_WINS.contentEquals(text) || BLACK_WINS.contentEquals(text) || DRAW.contentEquals(text) ||
+                UNFINISHED.contentEquals(text);
+    }
+}
@@ -0,0 +1,326 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the games of a PGN file one at a time, so files of any size can be imported with
+ * only one game in memory. Characters are pulled through a fixed buffer and tokenized in
+ * place; comments, variations and annotation glyphs are skipped without being kept.
+ * <p>
+ * Each move is read as SAN against the position the game has reached, so every game that
+ * comes out is legal from its starting position. A game that cannot be read is reported
+ * with a {@link PgnException} and skipped, and the next call carries on with the game
+ * after it.
+ */
+public final class PgnReader implements Closeable {
+
+    /**
+     * The longest tag value or move read, so a corrupt file cannot make one token take
+     * unbounded memory
+     */
+    private static final int MAX_TOKEN_LENGTH = 4096;
+
+    /**
+     * Characters that end a move or move number
+     */
+    private static final String DELIMITERS = "{}()[];$\"";
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int lineNumber = 1;
+    private boolean lineStart = true;
+
+    private final StringBuilder token = new StringBuilder();
+    private boolean inMovetext;
+    private boolean broken;
+
+    /**
+     * @param reader the PGN text; it is buffered here, so it does not need to be
+     */
+    public PgnReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next game
+     *
+     * @return the game, or null if there are no more games
+     * @throws PgnException if the game is malformed or has an illegal move; the rest of
+     *                      it is skipped by the next call
+     * @throws IOException  if the text cannot be read
+     */
+    public PgnGame next() throws IOException {
+        if (broken) {
+            broken = false;
+            skipBrokenGame();
+        }
+        inMovetext = false;
+        try {
+            Map<String, String> tags = new LinkedHashMap<>();
+            int c;
+            while ((c = skipBlanks()) == '[') {
+                readTag(tags);
+            }
+            if (c == -1 && tags.isEmpty()) {
+                return null;
+            }
+            inMovetext = true;
+            ChessGame game;
+            try {
+                game = tags.containsKey("FEN") ? ChessGame.fromFen(tags.get("FEN")) : new ChessGame();
+            } catch (IllegalArgumentException e) {
+                throw new PgnException(e.getMessage(), lineNumber);
+            }
+            List<ChessMove> moves = new ArrayList<>();
+            String result = readMovetext(game, moves);
+            return new PgnGame(tags, moves, result);
+        } catch (PgnException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * @return the line the reader has reached, counting from 1
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readTag(Map<String, String> tags) throws IOException {
+        read();
+        skipBlanks();
+        token.setLength(0);
+        int c;
+        while ((c = peek()) != -1 && (Character.isLetterOrDigit(c) || c == '_')) {
+            append(read());
+        }
+        if (token.isEmpty()) {
+            throw new PgnException("Tag has no name", lineNumber);
+        }
+        String name = token.toString();
+        if (skipBlanks() != '"') {
+            throw new PgnException("Tag " + name + " has no value", lineNumber);
+        }
+        read();
+        token.setLength(0);
+        int line = lineNumber;
+        while ((c = read()) != '"') {
+            if (c == '\\') {
+                c = read();
+            }
+            if (c == -1 || c == '\n') {
+                throw new PgnException("Tag " + name + " has an unterminated value", line);
+            }
+            append(c);
+        }
+        String value = token.toString();
+        if (skipBlanks() != ']') {
+            throw new PgnException("Tag " + name + " is not closed", lineNumber);
+        }
+        read();
+        tags.put(name, value);
+    }
+
+    /**
+     * Reads moves up to the game's result, playing each on the game
+     *
+     * @return the result the movetext ends with, or {@link PgnGame#UNFINISHED} if the
+     * file or the next game's tags come first
+     */
+    private String readMovetext(ChessGame game, List<ChessMove> moves) throws IOException {
+        while (true) {
+            int c = skipBlanks();
+            if (c == -1 || c == '[') {
+                return PgnGame.UNFINISHED;
+            } else if (c == '(') {
+                skipVariation();
+                continue;
+            } else if (c == '$') {
+                read();
+                readSymbol();
+                continue;
+            } else if (DELIMITERS.indexOf(c) >= 0) {
+                throw new PgnException("Unexpected '" + (char) c + "'", lineNumber);
+            }
+            readSymbol();
+            if (PgnGame.isResult(token)) {
+                return token.toString();
+            }
+            int start = moveStart();
+            if (start == token.length()) {
+                continue;
+            }
+            int move;
+            try {
+                move = game.parseSan(token, start, token.length());
+            } catch (InvalidMoveException e) {
+                throw new PgnException("Move " + game.getFullmoveNumber() + ": " + e.getMessage(), lineNumber);
+            }
+            moves.add(Move.toChessMove(move));
+            game.doMove(move);
+        }
+    }
+
+    /**
+     * @return the index in the token after any move number, such as {@code 12.} or
+     * {@code 12...}, that comes before the move itself
+     */
+    private int moveStart() {
+        if (token.length() >= 3 && token.charAt(0) == '0' && token.charAt(1) == '-') {
+            return 0;
+        }
+        int index = 0;
+        while (index < token.length() && Character.isDigit(token.charAt(index))) {
+            index++;
+        }
+        while (index < token.length() && token.charAt(index) == '.') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Skips what is left of a game that could not be read: its remaining tags if the
+     * problem was in them, then its moves up to the result or the next game's tags
+     */
+    private void skipBrokenGame() throws IOException {
+        boolean movetext = inMovetext;
+        if (!movetext && !lineStart) {
+            skipLine();
+        }
+        while (true) {
+            int c = skipBlanks();
+            if (c == -1) {
+                return;
+            } else if (c == '[') {
+                if (movetext) {
+                    return;
+                }
+                skipLine();
+                continue;
+            }
+            movetext = true;
+            if (c == '(') {
+                skipVariation();
+            } else if (DELIMITERS.indexOf(c) >= 0) {
+                read();
+            } else {
+                readSymbol();
+                if (PgnGame.isResult(token)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips a variation, with any variations and comments nested in it
+     */
+    private void skipVariation() throws IOException {
+        read();
+        int depth = 1;
+        while (depth > 0) {
+            int c = skipBlanks();
+            if (c == -1) {
+                throw new PgnException("Unterminated variation", lineNumber);
+            }
+            read();
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+        }
+    }
+
+    private void readSymbol() throws IOException {
+        token.setLength(0);
+        int c;
+        while ((c = peek()) != -1 && !Character.isWhitespace(c) && DELIMITERS.indexOf(c) < 0) {
+            append(read());
+        }
+    }
+
+    /**
+     * Skips whitespace, brace and rest-of-line comments and escaped lines
+     *
+     * @return the next character that is none of those, without reading it, or -1 at the
+     * end of the text
+     */
+    private int skipBlanks() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == '{') {
+                int line = lineNumber;
+                while ((c = read()) != '}') {
+                    if (c == -1) {
+                        throw new PgnException("Unterminated comment", line);
+                    }
+                }
+            } else if (c == ';' || (c == '%' && lineStart)) {
+                skipLine();
+            } else if (c == -1 || !Character.isWhitespace(c)) {
+                return c;
+            } else {
+                read();
+            }
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && c != '\n');
+    }
+
+    private void append(int c) throws PgnException {
+        if (token.length() == MAX_TOKEN_LENGTH) {
+            throw new PgnException("Token is longer than " + MAX_TOKEN_LENGTH + " characters", lineNumber);
+        }
+        token.append((char) c);
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            position++;
+            lineStart = c == '\n';
+            if (lineStart) {
+                lineNumber++;
+            }
+        }
+        return c;
+    }
+}
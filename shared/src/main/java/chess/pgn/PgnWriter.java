@@ -0,0 +1,121 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes games in the PGN export format: the seven standard tags first, filled in with
+ * {@code ?} where a game does not have them, then its other tags, then its moves in SAN
+ * wrapped to lines of at most 80 characters. Games are written one at a time as they are
+ * passed in, so archives of any size can be exported.
+ */
+public final class PgnWriter implements Closeable, Flushable {
+
+    private static final int LINE_LENGTH = 80;
+
+    /**
+     * The tags every exported game has, in the order they are written
+     */
+    private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(LINE_LENGTH + 16);
+
+    public PgnWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes one game, followed by a blank line
+     *
+     * @param game the game to write
+     * @throws IllegalArgumentException if one of the game's moves is not legal
+     * @throws IOException              if the text cannot be written
+     */
+    public void write(PgnGame game) throws IOException {
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? game.result() : game.tag(name);
+            writeTag(name, value != null ? value : name.equals("Date") ? "????.??.??" : "?");
+        }
+        for (Map.Entry<String, String> tag : game.tags().entrySet()) {
+            if (!isRosterTag(tag.getKey())) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        writer.write('\n');
+
+        ChessGame position = game.startingPosition();
+        boolean first = true;
+        line.setLength(0);
+        for (ChessMove move : game.moves()) {
+            int encoded = Move.fromChessMove(move);
+            String san = position.toSan(encoded);
+            if (position.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+                word(position.getFullmoveNumber() + ". " + san);
+            } else if (first) {
+                word(position.getFullmoveNumber() + "... " + san);
+            } else {
+                word(san);
+            }
+            position.doMove(encoded);
+            first = false;
+        }
+        word(game.result());
+        writer.append(line).write("\n\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        writer.write('[');
+        writer.write(name);
+        writer.write(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+            }
+            writer.write(c);
+        }
+        writer.write("\"]\n");
+    }
+
+    /**
+     * Adds a move, with its move number if it has one, or the result to the current line,
+     * starting a new line first if it would not fit
+     */
+    private void word(String word) throws IOException {
+        if (!line.isEmpty() && line.length() + 1 + word.length() > LINE_LENGTH) {
+            writer.append(line).write('\n');
+            line.setLength(0);
+        }
+        if (!line.isEmpty()) {
+            line.append(' ');
+        }
+        line.append(word);
+    }
+
+    private static boolean isRosterTag(String name) {
+        for (String roster : SEVEN_TAG_ROSTER) {
+            if (roster.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
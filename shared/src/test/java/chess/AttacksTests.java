@@ -0,0 +1,53 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttacksTests {
+
+    private static final int[][] ROOK_DIRECTIONS = {{1,0}, {-1,0}, {0,1}, {0,-1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1,1}, {-1,1}, {1,-1}, {-1,-1}};
+
+    @Test
+    void magicLookupsMatchRayWalks() {
+        Random random = new Random(240);
+        for (int i = 0; i < 2000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            for (int square = 0; square < 64; square++) {
+                assertEquals(walk(square, occupied, ROOK_DIRECTIONS), Attacks.rook(square, occupied));
+                assertEquals(walk(square, occupied, BISHOP_DIRECTIONS), Attacks.bishop(square, occupied));
+            }
+        }
+    }
+
+    @Test
+    void emptyAndFullBoards() {
+        int d4 = BitBoard.square(4, 4);
+        assertEquals(14, Long.bitCount(Attacks.rook(d4, 0)));
+        assertEquals(13, Long.bitCount(Attacks.bishop(d4, 0)));
+        assertEquals(4, Long.bitCount(Attacks.rook(d4, -1L)));
+        assertEquals(4, Long.bitCount(Attacks.bishop(d4, -1L)));
+        assertEquals(27, Long.bitCount(Attacks.queen(d4, 1L << d4)));
+    }
+
+    private static long walk(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int col = BitBoard.column(square) + direction[0];
+            int row = BitBoard.row(square) + direction[1];
+            while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                long bit = 1L << BitBoard.square(row, col);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                col += direction[0];
+                row += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,92 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitBoardTests {
+
+    @Test
+    void resetBoardFillsBitboards() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        BitBoard bits = board.getBitBoard();
+        assertEquals(0xFFFFL, bits.team(ChessGame.TeamColor.WHITE));
+        assertEquals(0xFFFFL << 48, bits.team(ChessGame.TeamColor.BLACK));
+        assertEquals(0xFF00L, bits.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertEquals(1L << 60, bits.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        assertEquals(32, Long.bitCount(bits.occupied()));
+    }
+
+    @Test
+    void addPieceKeepsBitboardsInSync() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessPosition e2 = new ChessPosition(2, 5);
+        ChessPosition e4 = new ChessPosition(4, 5);
+        board.addPiece(e4, board.getPiece(e2));
+        board.addPiece(e2, null);
+
+        BitBoard bits = board.getBitBoard();
+        assertEquals(BitBoard.NO_PIECE, bits.pieceAt(BitBoard.square(e2)));
+        assertEquals(BitBoard.pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                bits.pieceAt(BitBoard.square(e4)));
+        assertEquals(0, bits.occupied() & (1L << BitBoard.square(e2)));
+        assertEquals(32, Long.bitCount(bits.occupied()));
+    }
+
+    @Test
+    void deserializedBoardRebuildsBitboards() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessBoard copy = new Gson().fromJson(new Gson().toJson(board), ChessBoard.class);
+        assertEquals(board.getBitBoard(), copy.getBitBoard());
+        assertEquals(board, copy);
+    }
+
+    @Test
+    void kingSquareFollowsKing() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        assertEquals(new ChessPosition(1, 5), board.getKingPosition(ChessGame.TeamColor.WHITE));
+        assertEquals(new ChessPosition(8, 5), board.getKingPosition(ChessGame.TeamColor.BLACK));
+
+        ChessPiece king = board.getPiece(new ChessPosition(1, 5));
+        board.addPiece(new ChessPosition(1, 5), null);
+        assertNull(board.getKingPosition(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPosition(3, 3), king);
+        assertEquals(new ChessPosition(3, 3), board.getKingPosition(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void isAttackedStopsAtBlockers() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(1, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(5, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        BitBoard bits = board.getBitBoard();
+
+        assertTrue(bits.isAttacked(BitBoard.square(1, 4), ChessGame.TeamColor.BLACK));
+        assertFalse(bits.isAttacked(BitBoard.square(1, 5), ChessGame.TeamColor.BLACK));
+        assertTrue(bits.isAttacked(BitBoard.square(8, 1), ChessGame.TeamColor.BLACK));
+        assertTrue(bits.isAttacked(BitBoard.square(4, 4), ChessGame.TeamColor.BLACK));
+        assertFalse(bits.isAttacked(BitBoard.square(6, 4), ChessGame.TeamColor.BLACK));
+        assertTrue(bits.isAttacked(BitBoard.square(2, 3), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void cloneSharesImmutablePieces() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessBoard clone = board.clone();
+        ChessPosition e1 = new ChessPosition(1, 5);
+        assertSame(board.getPiece(e1), clone.getPiece(e1));
+        assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING), clone.getPiece(e1));
+
+        clone.addPiece(e1, null);
+        assertNotNull(board.getPiece(e1));
+        assertEquals(new ChessPosition(1, 5), board.getKingPosition(ChessGame.TeamColor.WHITE));
+        assertSame(ChessPosition.of(1, 5), board.getKingPosition(ChessGame.TeamColor.WHITE));
+    }
+}
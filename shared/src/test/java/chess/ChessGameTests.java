@@ -0,0 +1,359 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameTests {
+
+    @Test
+    void undoMoveRestoresPosition() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = game.getBoard().clone();
+        game.doMove(Move.fromChessMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertNotEquals(before, game.getBoard());
+
+        game.undoMove();
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void undoPromotionCaptureRestoresBothPieces() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(7, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(8, 2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        game.setBoard(board);
+
+        game.doMove(Move.fromChessMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2),
+                ChessPiece.PieceType.KNIGHT)));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
+                game.getBoard().getPiece(new ChessPosition(8, 2)));
+
+        game.undoMove();
+        assertEquals(board, game.getBoard());
+    }
+
+    @Test
+    void statusQueriesLeaveBoardUntouched() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = game.getBoard().clone();
+        assertFalse(game.isGameOver());
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void positionKeyIsIncrementalAndOrderIndependent() {
+        ChessGame first = new ChessGame();
+        ChessGame second = new ChessGame();
+        long startKey = first.getPositionKey();
+
+        first.doMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        first.doMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        first.doMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+        second.doMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+        second.doMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        second.doMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+
+        assertEquals(first.getPositionKey(), second.getPositionKey());
+        assertNotEquals(startKey, first.getPositionKey());
+        ChessBoard rebuilt = new Gson().fromJson(new Gson().toJson(first.getBoard()), ChessBoard.class);
+        assertEquals(first.getBoard().getZobristKey(), rebuilt.getZobristKey());
+
+        first.setTeamTurn(ChessGame.TeamColor.WHITE);
+        assertNotEquals(first.getPositionKey(), second.getPositionKey());
+        first.setTeamTurn(ChessGame.TeamColor.BLACK);
+        first.undoMove();
+        first.undoMove();
+        first.undoMove();
+        assertEquals(startKey, first.getPositionKey());
+    }
+
+    @Test
+    void statusIsComputedOncePerPosition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        GameStatus status = game.getStatus();
+        assertEquals(20, status.legalMoveCount());
+        assertSame(status, game.getStatus(ChessGame.TeamColor.WHITE));
+        assertFalse(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        assertSame(status, game.getStatus());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        assertNotSame(status, game.getStatus(ChessGame.TeamColor.WHITE));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        GameStatus mated = game.getStatus();
+        assertEquals(ChessGame.TeamColor.WHITE, mated.team());
+        assertTrue(mated.isCheckmate());
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        assertEquals("BLACK", game.getWinner());
+        assertSame(mated, game.getStatus());
+    }
+
+    @Test
+    void statusFollowsBoardEdits() {
+        ChessGame game = new ChessGame();
+        assertFalse(game.isInCheck(ChessGame.TeamColor.WHITE));
+        assertFalse(game.getStatus().inCheck());
+        game.getBoard().addPiece(new ChessPosition(3, 4), new ChessPiece(ChessGame.TeamColor.BLACK,
+                ChessPiece.PieceType.KNIGHT));
+        assertTrue(game.getStatus().inCheck());
+    }
+
+    @Test
+    void castlingRightsFollowMovesAndUndo() {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        long startKey = game.getPositionKey();
+
+        game.doMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                game.getBoard().getPiece(new ChessPosition(1, 6)));
+        assertNull(game.getBoard().getPiece(new ChessPosition(1, 8)));
+        assertEquals(ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE, game.getCastlingRights());
+
+        game.doMove(new ChessMove(new ChessPosition(8, 8), new ChessPosition(1, 8), null));
+        assertEquals(ChessGame.BLACK_QUEENSIDE, game.getCastlingRights());
+
+        game.undoMove();
+        game.undoMove();
+        assertEquals(ChessGame.ALL_CASTLING, game.getCastlingRights());
+        assertEquals(ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1").getBoard(), game.getBoard());
+        assertEquals(startKey, game.getPositionKey());
+
+        game.setCastlingRights(0);
+        assertNotEquals(startKey, game.getPositionKey());
+    }
+
+    @Test
+    void enPassantSquareIsOnlyKeptWhenACaptureIsPossible() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/3p4/8/2P1P3/4K3 w - - 0 1");
+        game.doMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertEquals(BitBoard.square(3, 5), game.getEnPassantSquare());
+        long withEnPassant = game.getPositionKey();
+
+        ChessMove capture = new ChessMove(new ChessPosition(4, 4), new ChessPosition(3, 5), null);
+        assertTrue(game.validMoves(new ChessPosition(4, 4)).contains(capture));
+        game.doMove(capture);
+        assertNull(game.getBoard().getPiece(new ChessPosition(4, 5)));
+        game.undoMove();
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                game.getBoard().getPiece(new ChessPosition(4, 5)));
+        assertEquals(withEnPassant, game.getPositionKey());
+        game.undoMove();
+
+        game.doMove(new ChessMove(new ChessPosition(2, 3), new ChessPosition(4, 3), null));
+        assertEquals(BitBoard.square(3, 3), game.getEnPassantSquare());
+        game.undoMove();
+        // With the black pawn gone the double step leaves nothing to capture
+        game.getBoard().addPiece(new ChessPosition(4, 4), null);
+        game.doMove(new ChessMove(new ChessPosition(2, 3), new ChessPosition(4, 3), null));
+        assertEquals(BitBoard.NO_SQUARE, game.getEnPassantSquare());
+    }
+
+    @Test
+    void repeatingPositionThreeTimesDrawsTheGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessMove[] shuffle = {
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null),
+                new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null),
+                new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null),
+                new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null)};
+        for (ChessMove move : shuffle) {
+            game.makeMove(move);
+        }
+        assertEquals(1, game.repetitions());
+        assertFalse(game.isGameOver());
+
+        for (ChessMove move : shuffle) {
+            game.makeMove(move);
+        }
+        assertEquals(2, game.repetitions());
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals("DRAW", game.getWinner());
+
+        ChessGame reloaded = new Gson().fromJson(new Gson().toJson(game), ChessGame.class);
+        assertTrue(reloaded.isThreefoldRepetition());
+        game.undoMove();
+        assertFalse(game.isThreefoldRepetition());
+    }
+
+    @Test
+    void serializesOnlyTheKeysThatCanRepeat() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertTrue(new Gson().toJson(game).contains("\"keyHistory\":[]"));
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        String json = new Gson().toJson(game);
+        assertFalse(json.contains("historyLength"));
+        ChessGame reloaded = new Gson().fromJson(json, ChessGame.class);
+        assertArrayEquals(game.liveKeys(), reloaded.liveKeys());
+        assertEquals(2, reloaded.liveKeys().length);
+        assertEquals(game.toFen(), reloaded.toFen());
+    }
+
+    @Test
+    void countsRepetitionsOnlyOverTheKeptHistory() {
+        ChessGame game = new ChessGame();
+        int[] shuffle = {
+                Move.fromChessMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null)),
+                Move.fromChessMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null)),
+                Move.fromChessMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null)),
+                Move.fromChessMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null))};
+        // 136 quiet plies, more than the 128 the game keeps, so the oldest keys are gone
+        for (int i = 0; i < 34; i++) {
+            for (int move : shuffle) {
+                game.doMove(move);
+            }
+        }
+        assertEquals(136, game.getHalfmoveClock());
+        assertEquals(32, game.repetitions());
+    }
+
+    @Test
+    void fiftyMovesWithoutCaptureOrPawnMoveDrawTheGame() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/4p3/8/8/8/8/8/R3K3 w - - 98 80");
+        game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(1, 2), null));
+        assertEquals(99, game.getHalfmoveClock());
+        assertFalse(game.isFiftyMoveDraw());
+
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(6, 5), null));
+        assertEquals(0, game.getHalfmoveClock());
+        game.undoMove();
+        assertEquals(99, game.getHalfmoveClock());
+
+        game.makeMove(new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 4), null));
+        assertTrue(game.isFiftyMoveDraw());
+        assertTrue(game.isGameOver());
+        assertEquals("DRAW", game.getWinner());
+    }
+
+    @Test
+    void fenRoundTripsEveryField() {
+        String[] positions = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w Kq f6 0 3",
+                "4k3/4p3/8/8/8/8/8/R3K3 b - - 98 80"};
+        for (String fen : positions) {
+            assertEquals(fen, ChessGame.fromFen(fen).toFen());
+        }
+        assertEquals(new ChessGame().getBoard(), ChessGame.fromFen(positions[0]).getBoard());
+        assertEquals(new ChessGame().getPositionKey(), ChessGame.fromFen(positions[0]).getPositionKey());
+    }
+
+    @Test
+    void fenFollowsPlayedMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", game.toFen());
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 1 2", game.toFen());
+        assertEquals(game.getPositionKey(), ChessGame.fromFen(game.toFen()).getPositionKey());
+
+        game.undoMove();
+        assertEquals(1, game.getFullmoveNumber());
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+    }
+
+    @Test
+    void fenClocksAreOptional() {
+        ChessGame game = ChessGame.fromFen("8/8/3k4/8/8/3K4/8/8 b - -");
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(0, game.getHalfmoveClock());
+        assertEquals(1, game.getFullmoveNumber());
+        assertEquals(12, ChessGame.fromFen("8/8/3k4/8/8/3K4/8/8 b - - 12").getHalfmoveClock());
+    }
+
+    @Test
+    void fenDropsEnPassantSquaresNoPawnCanCapture() {
+        ChessGame game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        assertEquals(BitBoard.NO_SQUARE, game.getEnPassantSquare());
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", game.toFen());
+    }
+
+    @Test
+    void malformedFenIsRejected() {
+        String[] invalid = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w",
+                "8/8/8/8/8/8/8/8 w - - 0 1",
+                "4k3/8/8/8/8/8/8/3KK3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/8 w - - 0 1",
+                "4k3/4Q3/8/8/8/8/8/4K3 w - - 0 1",
+                "3Pk3/8/8/8/8/8/8/4K3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/p3K3 b - - 0 1"};
+        for (String fen : invalid) {
+            assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+
+    @Test
+    void everyLegalMoveRoundTripsThroughSan() throws InvalidMoveException {
+        for (Perft.Position position : Perft.POSITIONS) {
+            ChessGame game = ChessGame.fromFen(position.fen());
+            Set<String> written = new HashSet<>();
+            for (ChessMove move : game.getStatus().legalMoves()) {
+                String san = game.toSan(move);
+                assertTrue(written.add(san), san);
+                assertEquals(move, game.parseSan(san), san);
+            }
+        }
+    }
+
+    @Test
+    void sanNamesChecksCapturesPromotionsAndCastling() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+        assertEquals("O-O", game.toSan(move(1, 5, 1, 7, null)));
+        assertEquals("O-O-O", game.toSan(move(1, 5, 1, 3, null)));
+        assertEquals("exd6", game.toSan(move(5, 5, 6, 4, null)));
+        assertEquals("bxa8=Q+", game.toSan(move(7, 2, 8, 1, ChessPiece.PieceType.QUEEN)));
+        assertEquals("b8=N", game.toSan(move(7, 2, 8, 2, ChessPiece.PieceType.KNIGHT)));
+        assertEquals("Rxa8+", game.toSan(move(1, 1, 8, 1, null)));
+
+        assertEquals(move(1, 5, 1, 7, null), game.parseSan("0-0"));
+        assertEquals(move(7, 2, 8, 1, ChessPiece.PieceType.QUEEN), game.parseSan("bxa8Q"));
+        assertEquals(move(1, 1, 8, 1, null), game.parseSan("Rxa8!"));
+        assertEquals(move(1, 8, 5, 8, null), game.parseSan("Rh5"));
+        assertEquals("r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1", game.toFen());
+    }
+
+    @Test
+    void sanRejectsMovesThatAreNotLegalOrNotClear() {
+        ChessGame game = ChessGame.fromFen("4k3/1P6/8/8/8/8/K7/R6R w - - 0 1");
+        assertThrows(InvalidMoveException.class, () -> game.parseSan("Rd1"));
+        assertThrows(InvalidMoveException.class, () -> game.parseSan("b8"));
+        assertThrows(InvalidMoveException.class, () -> game.parseSan("Ke2"));
+        assertThrows(InvalidMoveException.class, () -> game.parseSan("O-O"));
+        assertThrows(InvalidMoveException.class, () -> game.parseSan("Rj1"));
+        assertThrows(InvalidMoveException.class, () -> game.parseSan("b8=K"));
+        assertThrows(IllegalArgumentException.class, () -> game.toSan(move(1, 1, 3, 3, null)));
+        assertEquals("Rad1", move(1, 1, 1, 4, null).toSan(game));
+    }
+
+    private static ChessMove move(int fromRow, int fromColumn, int toRow, int toColumn,
+                                  ChessPiece.PieceType promotion) {
+        return new ChessMove(new ChessPosition(fromRow, fromColumn), new ChessPosition(toRow, toColumn), promotion);
+    }
+}
@@ -0,0 +1,89 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveGeneratorTests {
+
+    @Test
+    void matchesTrialMoveFilteringOverRandomGames() {
+        Random random = new Random(240);
+        for (int gameNumber = 0; gameNumber < 200; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                MoveList referenceMoves = new MoveList();
+                Perft.PIECE_MOVES.generate(game, referenceMoves);
+                List<ChessMove> expected = new ArrayList<>();
+                for (int i = 0; i < referenceMoves.size(); i++) {
+                    expected.add(Move.toChessMove(referenceMoves.get(i)));
+                }
+                List<ChessMove> actual = new ArrayList<>(game.legalMoves(game.getTeamTurn()));
+                assertEquals(new HashSet<>(expected), new HashSet<>(actual), game.getBoard().toString());
+                assertEquals(expected.size(), actual.size());
+                if (actual.isEmpty()) {
+                    break;
+                }
+                game.doMove(actual.get(random.nextInt(actual.size())));
+            }
+        }
+    }
+
+    @Test
+    void doubleCheckOnlyAllowsKingMoves() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(2, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(3, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        for (ChessMove move : game.legalMoves(ChessGame.TeamColor.WHITE)) {
+            assertEquals(new ChessPosition(1, 5), move.getStartPosition());
+        }
+    }
+
+    @Test
+    void capturesAndQuietsSplitTheLegalMoves() {
+        Random random = new Random(16);
+        for (Perft.Position position : Perft.POSITIONS) {
+            ChessGame game = ChessGame.fromFen(position.fen());
+            for (int ply = 0; ply < 60; ply++) {
+                ChessGame.TeamColor us = game.getTeamTurn();
+                MoveList all = new MoveList();
+                MoveList captures = new MoveList();
+                MoveList quiets = new MoveList();
+                MoveGenerator.generate(game, us, all);
+                MoveGenerator.generateCaptures(game, us, captures);
+                MoveGenerator.generateQuiets(game, us, quiets);
+
+                HashSet<Integer> split = new HashSet<>();
+                for (int i = 0; i < captures.size(); i++) {
+                    int move = captures.get(i);
+                    assertTrue(Move.isCapture(move) || Move.isPromotion(move));
+                    split.add(move);
+                }
+                for (int i = 0; i < quiets.size(); i++) {
+                    int move = quiets.get(i);
+                    assertFalse(Move.isCapture(move) || Move.isPromotion(move));
+                    assertTrue(split.add(move), "move generated twice");
+                }
+                HashSet<Integer> expected = new HashSet<>();
+                for (int i = 0; i < all.size(); i++) {
+                    expected.add(all.get(i));
+                }
+                assertEquals(expected, split, game.getBoard().toString());
+                if (all.isEmpty()) {
+                    break;
+                }
+                game.doMove(all.get(random.nextInt(all.size())));
+            }
+        }
+    }
+}
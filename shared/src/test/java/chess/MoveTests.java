@@ -0,0 +1,42 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveTests {
+
+    @Test
+    void encodingRoundTripsChessMoves() {
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2),
+                ChessPiece.PieceType.KNIGHT);
+        int move = Move.fromChessMove(promotion);
+        assertEquals(BitBoard.square(7, 1), Move.from(move));
+        assertEquals(BitBoard.square(8, 2), Move.to(move));
+        assertEquals(ChessPiece.PieceType.KNIGHT, Move.promotion(move));
+        assertEquals(promotion, Move.toChessMove(move));
+        assertEquals("a7b8n", Move.toString(move));
+
+        ChessMove quiet = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        assertNull(Move.promotion(Move.fromChessMove(quiet)));
+        assertEquals(quiet, Move.toChessMove(Move.fromChessMove(quiet) | Move.DOUBLE_PUSH));
+    }
+
+    @Test
+    void encodedMovesUndoWithoutRecords() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = game.getBoard().clone();
+        MoveList moves = new MoveList();
+        game.legalMoves(ChessGame.TeamColor.WHITE, moves);
+        assertEquals(20, moves.size());
+
+        for (int i = 0; i < moves.size(); i++) {
+            game.doMove(moves.get(i));
+            game.doMove(Move.encode(BitBoard.square(7, 5), BitBoard.square(5, 5)));
+            game.undoMove();
+            game.undoMove();
+            assertEquals(before, game.getBoard());
+            assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        }
+    }
+}
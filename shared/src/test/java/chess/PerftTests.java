@@ -0,0 +1,73 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTests {
+
+    private final Perft perft = new Perft(Perft.LEGAL_MOVES);
+    private final Perft reference = new Perft(Perft.PIECE_MOVES);
+
+    @Test
+    void startPositionMatchesPublishedCounts() {
+        assertPerft(Perft.START, 4);
+    }
+
+    @Test
+    void kiwipeteMatchesPublishedCounts() {
+        assertPerft(Perft.KIWIPETE, 3);
+    }
+
+    @Test
+    void position3MatchesPublishedCounts() {
+        assertPerft(Perft.POSITION_3, 4);
+    }
+
+    @Test
+    void position4MatchesPublishedCounts() {
+        assertPerft(Perft.POSITION_4, 3);
+    }
+
+    @Test
+    void position5MatchesPublishedCounts() {
+        assertPerft(Perft.POSITION_5, 3);
+    }
+
+    @Test
+    void position6MatchesPublishedCounts() {
+        assertPerft(Perft.POSITION_6, 3);
+    }
+
+    @Test
+    void generatorMatchesPieceMovesReference() {
+        for (Perft.Position position : Perft.POSITIONS) {
+            ChessGame game = ChessGame.fromFen(position.fen());
+            Map<ChessMove, Long> expected = reference.divide(game, 3);
+            Map<ChessMove, Long> actual = perft.divide(game, 3);
+            assertEquals(expected, actual, position.name());
+        }
+    }
+
+    @Test
+    void perftLeavesGameUnchanged() {
+        ChessGame game = ChessGame.fromFen(Perft.KIWIPETE.fen());
+        ChessBoard before = game.getBoard().clone();
+        long key = game.getPositionKey();
+        perft.perft(game, 3);
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertEquals(ChessGame.ALL_CASTLING, game.getCastlingRights());
+        assertEquals(key, game.getPositionKey());
+    }
+
+    private void assertPerft(Perft.Position position, int maxDepth) {
+        ChessGame game = ChessGame.fromFen(position.fen());
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            assertEquals(position.expected()[depth - 1], perft.perft(game, depth),
+                    position.name() + " depth " + depth);
+        }
+    }
+}
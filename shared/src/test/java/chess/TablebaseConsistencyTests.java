@@ -0,0 +1,119 @@
+package chess;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks a four-piece table against the values of every position's moves. Building the
+ * tables takes minutes, so these only run in the {@code slow-tests} profile:
+ * {@code mvn -pl shared -P slow-tests test -Dgroups=slow}
+ */
+@Tag("slow")
+public class TablebaseConsistencyTests {
+
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generateTables() {
+        tablebase = TablebaseGenerator.generate(List.of("KQvK", "KRvK", "KPvK",
+                "KQvKQ", "KQvKR", "KQvKB", "KQvKN", "KRvKR", "KRvKB", "KRvKN", "KBvKB", "KBvKN", "KNvKN",
+                "KQvKP", "KRvKP", "KBvKP", "KNvKP", "KPvKP"));
+    }
+
+    @Test
+    void pawnEndingsAgreeWithTheMoveGenerator() {
+        Random random = new Random(240);
+        int checked = 0;
+        while (checked < 4000) {
+            // Every other position has a double push that can be taken en passant
+            ChessGame game = randomPawnEnding(random, checked % 2 == 0);
+            if (game == null) {
+                continue;
+            }
+            assertEquals(valueFromMoves(game), tablebase.probe(game), game.getBoard().toString());
+            checked++;
+        }
+    }
+
+    /**
+     * Places two kings and a pawn each, or returns null if the placement is impossible
+     */
+    private static ChessGame randomPawnEnding(Random random, boolean doublePush) {
+        ChessGame.TeamColor turn = random.nextBoolean() ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        int[] squares = {random.nextInt(64), random.nextInt(64), 8 + random.nextInt(48), 8 + random.nextInt(48)};
+        if (doublePush) {
+            int column = random.nextInt(8);
+            int beside = column + (random.nextBoolean() ? 1 : -1);
+            if (beside < 0 || beside > 7) {
+                return null;
+            }
+            boolean white = turn == ChessGame.TeamColor.WHITE;
+            squares[2] = white ? 8 + column : 32 + beside;
+            squares[3] = white ? 24 + beside : 48 + column;
+        }
+        for (int i = 1; i < 4; i++) {
+            for (int j = 0; j < i; j++) {
+                if (squares[j] == squares[i]) {
+                    return null;
+                }
+            }
+        }
+        ChessBoard board = new ChessBoard();
+        board.addPiece(position(squares[0]), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(position(squares[1]), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(position(squares[2]), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(position(squares[3]), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setCastlingRights(0);
+        game.setTeamTurn(turn);
+        return game.isInCheck(turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK :
+                ChessGame.TeamColor.WHITE) ? null : game;
+    }
+
+    private static ChessPosition position(int square) {
+        return new ChessPosition(BitBoard.row(square), BitBoard.column(square));
+    }
+
+    /**
+     * Works out a position's value from the values after each of its legal moves. The
+     * tablebase does not answer for positions where an en passant capture is possible,
+     * so those are worked out from their own moves in turn.
+     */
+    private static int valueFromMoves(ChessGame game) {
+        GameStatus status = game.getStatus();
+        if (status.isGameOver()) {
+            return status.isCheckmate() ? Tablebase.loss(0) : 0;
+        }
+        int shortestLoss = Integer.MAX_VALUE;
+        int longestWin = -1;
+        boolean allWins = true;
+        for (ChessMove move : status.legalMoves()) {
+            ChessGame child = new ChessGame(game);
+            try {
+                child.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new AssertionError(e);
+            }
+            int value = child.getEnPassantSquare() == BitBoard.NO_SQUARE ? tablebase.probe(child) :
+                    valueFromMoves(child);
+            assertNotEquals(Tablebase.UNKNOWN, value);
+            if (Tablebase.isLoss(value)) {
+                shortestLoss = Math.min(shortestLoss, Tablebase.pliesToMate(value));
+            } else if (Tablebase.isWin(value)) {
+                longestWin = Math.max(longestWin, Tablebase.pliesToMate(value));
+            }
+            allWins &= Tablebase.isWin(value);
+        }
+        if (shortestLoss != Integer.MAX_VALUE) {
+            return Tablebase.win(shortestLoss + 1);
+        }
+        return allWins ? Tablebase.loss(longestWin + 1) : 0;
+    }
+}
@@ -0,0 +1,281 @@
+package chess;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTests {
+
+    @TempDir
+    static Path directory;
+
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generateTables() throws IOException {
+        TablebaseGenerator.write(directory, TablebaseGenerator.THREE_PIECE_TABLES);
+        tablebase = new Tablebase(directory);
+    }
+
+    @Test
+    void opensEveryTableInTheDirectory() {
+        assertEquals(List.of("KPvK", "KQvK", "KRvK"), tablebase.tableNames());
+    }
+
+    @Test
+    void findsTheLongestKnownMates() throws IOException {
+        // A queen mates a lone king in at most ten moves, a rook in at most sixteen
+        assertEquals(19, longestWin("KQvK"));
+        assertEquals(31, longestWin("KRvK"));
+    }
+
+    @Test
+    void packsValuesIntoAsFewBitsAsTheLongestMateNeeds() throws IOException {
+        // A draw, wins in 1 to 10 moves and losses in 0 to 10 moves make 22 codes
+        EndgameTable table = read("KQvK");
+        assertEquals(5, table.bits());
+        assertEquals(EndgameTable.HEADER_BYTES + EndgameTable.size(3) * 5 / 8 + 8,
+                Files.size(directory.resolve("KQvK.tb")));
+    }
+
+    @Test
+    void buildsTheSameTableOnAnyNumberOfThreads() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            assertArrayEquals(TablebaseGenerator.generate("KRvK", new Tablebase(), single),
+                    TablebaseGenerator.generate("KRvK", new Tablebase(), several));
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    @Test
+    void probesWinsAndLosses() {
+        int mateInOne = tablebase.probe(ChessGame.fromFen("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1"));
+        assertTrue(Tablebase.isWin(mateInOne));
+        assertEquals(1, Tablebase.pliesToMate(mateInOne));
+
+        int matedInTwo = tablebase.probe(ChessGame.fromFen("k7/8/1K6/8/8/8/8/7Q b - - 0 1"));
+        assertTrue(Tablebase.isLoss(matedInTwo));
+        assertEquals(2, Tablebase.pliesToMate(matedInTwo));
+
+        int checkmated = tablebase.probe(ChessGame.fromFen("R1k5/8/2K5/8/8/8/8/8 b - - 0 1"));
+        assertTrue(Tablebase.isLoss(checkmated));
+        assertEquals(0, Tablebase.pliesToMate(checkmated));
+    }
+
+    @Test
+    void probesDraws() {
+        // The black king holds the blockade in front of the pawn
+        assertEquals(0, tablebase.probe(ChessGame.fromFen("3k4/8/3P4/3K4/8/8/8/8 w - - 0 1")));
+        // Stalemate
+        assertEquals(0, tablebase.probe(ChessGame.fromFen("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1")));
+    }
+
+    @Test
+    void probesWithTheColorsSwapped() {
+        int white = tablebase.probe(ChessGame.fromFen("k1K1R3/8/8/8/8/8/8/8 w - - 0 1"));
+        int black = tablebase.probe(ChessGame.fromFen("8/8/8/8/8/8/8/K1k1r3 b - - 0 1"));
+        assertTrue(Tablebase.isWin(white));
+        assertEquals(white, black);
+
+        int pawnWhite = tablebase.probe(ChessGame.fromFen("8/8/8/8/8/2K5/2P5/k7 w - - 0 1"));
+        int pawnBlack = tablebase.probe(ChessGame.fromFen("K7/2p5/2k5/8/8/8/8/8 b - - 0 1"));
+        assertNotEquals(Tablebase.UNKNOWN, pawnWhite);
+        assertEquals(pawnWhite, pawnBlack);
+    }
+
+    @Test
+    void knowsDrawsByLackOfMaterialWithoutTables() {
+        Tablebase empty = new Tablebase();
+        assertEquals(0, empty.probe(ChessGame.fromFen("8/8/3k4/8/8/3KN3/8/8 w - - 0 1")));
+        assertEquals(0, empty.probe(ChessGame.fromFen("8/8/3k4/8/8/3K4/8/8 b - - 0 1")));
+        assertEquals(Tablebase.UNKNOWN, empty.probe(ChessGame.fromFen("8/8/3k4/8/8/3KQ3/8/8 w - - 0 1")));
+        assertEquals(Tablebase.UNKNOWN, empty.probe(new ChessGame()));
+    }
+
+    @Test
+    void skipsPositionsWithCastlingRights() {
+        assertEquals(Tablebase.UNKNOWN, tablebase.probe(ChessGame.fromFen("8/8/3k4/8/8/8/8/4K2R w K - 0 1")));
+        assertNotEquals(Tablebase.UNKNOWN, tablebase.probe(ChessGame.fromFen("8/8/3k4/8/8/8/8/4K2R w - - 0 1")));
+    }
+
+    @Test
+    void agreesWithTheMoveGenerator() {
+        Random random = new Random(240);
+        ChessPiece.PieceType[] types = {ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+                ChessPiece.PieceType.PAWN};
+        int checked = 0;
+        while (checked < 600) {
+            ChessGame game = randomPosition(random, types[checked % types.length]);
+            if (game == null) {
+                continue;
+            }
+            assertEquals(valueFromMoves(game), tablebase.probe(game), game.getBoard().toString());
+            checked++;
+        }
+    }
+
+    @Test
+    void adjudicatesFinishedEndgames() {
+        ChessGame won = ChessGame.fromFen("8/8/8/4k3/8/8/1R6/4K3 b - - 0 1");
+        assertFalse(won.isGameOver());
+        assertTrue(won.isGameOver(tablebase));
+        assertEquals("WHITE", won.getWinner(tablebase));
+
+        ChessGame drawn = ChessGame.fromFen("8/8/3k4/8/8/3KB3/8/8 w - - 0 1");
+        assertTrue(drawn.isGameOver(new Tablebase()));
+        assertEquals("DRAW", drawn.getWinner(new Tablebase()));
+
+        ChessGame start = new ChessGame();
+        assertFalse(start.isGameOver(tablebase));
+        assertEquals("", start.getWinner(tablebase));
+    }
+
+    @Test
+    void foldsEnPassantWinsIntoTheStoredValue() {
+        // Taking en passant into a position where the pusher is mated in 4 wins in 5
+        int[] winning = {Tablebase.loss(4)};
+        assertEquals(Tablebase.win(5), TablebaseGenerator.enPassantValue(TablebaseGenerator.UNRESOLVED, 9,
+                winning, 1));
+        assertEquals(Tablebase.win(3), TablebaseGenerator.enPassantValue(Tablebase.win(3), 9, winning, 1));
+        // A stored win resolved during the current pass is not known yet
+        assertEquals(Tablebase.win(5), TablebaseGenerator.enPassantValue(Tablebase.win(3), 3, winning, 1));
+        assertEquals(Tablebase.win(5), TablebaseGenerator.enPassantValue(Tablebase.loss(8), 9, winning, 1));
+    }
+
+    @Test
+    void losesWithEnPassantOnlyOnceEveryWayLoses() {
+        int[] losing = {Tablebase.win(9), Tablebase.win(3)};
+        assertEquals(Tablebase.loss(10), TablebaseGenerator.enPassantValue(Tablebase.loss(6), 12, losing, 2));
+        assertEquals(Tablebase.loss(6), TablebaseGenerator.enPassantValue(Tablebase.loss(6), 12,
+                new int[]{Tablebase.win(3)}, 1));
+        assertEquals(TablebaseGenerator.UNRESOLVED, TablebaseGenerator.enPassantValue(TablebaseGenerator.UNRESOLVED,
+                12, losing, 2));
+        assertEquals(TablebaseGenerator.UNRESOLVED, TablebaseGenerator.enPassantValue(Tablebase.loss(6), 6,
+                losing, 2));
+    }
+
+    @Test
+    void drawsWhenEnPassantDrawsAndNothingWins() {
+        int[] drawing = {0};
+        assertEquals(0, TablebaseGenerator.enPassantValue(Tablebase.loss(6), 12, drawing, 1));
+        assertEquals(TablebaseGenerator.UNRESOLVED, TablebaseGenerator.enPassantValue(TablebaseGenerator.UNRESOLVED,
+                12, drawing, 1));
+    }
+
+    @Test
+    void treatsStoredMatesAndStalematesAsHavingOnlyTheCaptures() {
+        // Taking en passant escapes a mate or a stalemate the stored position has without it
+        int[] losing = {Tablebase.win(3)};
+        assertEquals(Tablebase.loss(4), TablebaseGenerator.enPassantValue(Tablebase.loss(0), 1, losing, 1));
+        assertEquals(Tablebase.loss(4), TablebaseGenerator.enPassantValue(0, 1, losing, 1));
+        assertEquals(0, TablebaseGenerator.enPassantValue(Tablebase.loss(0), 1, new int[]{0}, 1));
+        assertEquals(Tablebase.win(1), TablebaseGenerator.enPassantValue(0, 1, new int[]{Tablebase.loss(0)}, 1));
+        // The first pass has not looked at every stored position yet
+        assertEquals(TablebaseGenerator.UNRESOLVED, TablebaseGenerator.enPassantValue(0, 0, losing, 1));
+    }
+
+    @Test
+    void needsTheTablesCapturesLeadTo() {
+        assertThrows(IllegalStateException.class, () -> TablebaseGenerator.generate(List.of("KPvK")));
+    }
+
+    @Test
+    void rejectsTablesOfTheWrongSize(@TempDir Path other) throws IOException {
+        Files.write(other.resolve("KQvK.tb"), new byte[100]);
+        assertThrows(IOException.class, () -> new Tablebase(other));
+    }
+
+    /**
+     * Places a white king and piece against a black king, or returns null if the side
+     * not to move is left in check
+     */
+    private static ChessGame randomPosition(Random random, ChessPiece.PieceType type) {
+        int[] squares = new int[3];
+        for (int i = 0; i < 3; i++) {
+            squares[i] = random.nextInt(64);
+            for (int j = 0; j < i; j++) {
+                if (squares[j] == squares[i]) {
+                    return null;
+                }
+            }
+        }
+        if (type == ChessPiece.PieceType.PAWN && (squares[1] < 8 || squares[1] >= 56)) {
+            return null;
+        }
+        ChessBoard board = new ChessBoard();
+        board.addPiece(position(squares[0]), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(position(squares[1]), new ChessPiece(ChessGame.TeamColor.WHITE, type));
+        board.addPiece(position(squares[2]), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setCastlingRights(0);
+        ChessGame.TeamColor turn = random.nextBoolean() ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        game.setTeamTurn(turn);
+        return game.isInCheck(turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK :
+                ChessGame.TeamColor.WHITE) ? null : game;
+    }
+
+    private static ChessPosition position(int square) {
+        return new ChessPosition(BitBoard.row(square), BitBoard.column(square));
+    }
+
+    /**
+     * Works out a position's value from the table values after each of its legal moves
+     */
+    private static int valueFromMoves(ChessGame game) {
+        GameStatus status = game.getStatus();
+        if (status.isGameOver()) {
+            return status.isCheckmate() ? Tablebase.loss(0) : 0;
+        }
+        int shortestLoss = Integer.MAX_VALUE;
+        int longestWin = -1;
+        boolean allWins = true;
+        for (ChessMove move : status.legalMoves()) {
+            ChessGame child = new ChessGame(game);
+            try {
+                child.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new AssertionError(e);
+            }
+            int value = tablebase.probe(child);
+            assertNotEquals(Tablebase.UNKNOWN, value);
+            if (Tablebase.isLoss(value)) {
+                shortestLoss = Math.min(shortestLoss, Tablebase.pliesToMate(value));
+            } else if (Tablebase.isWin(value)) {
+                longestWin = Math.max(longestWin, Tablebase.pliesToMate(value));
+            }
+            allWins &= Tablebase.isWin(value);
+        }
+        if (shortestLoss != Integer.MAX_VALUE) {
+            return Tablebase.win(shortestLoss + 1);
+        }
+        return allWins ? Tablebase.loss(longestWin + 1) : 0;
+    }
+
+    private static EndgameTable read(String name) throws IOException {
+        return new EndgameTable(name, ByteBuffer.wrap(Files.readAllBytes(directory.resolve(name + ".tb"))));
+    }
+
+    private static int longestWin(String name) throws IOException {
+        EndgameTable table = read(name);
+        int longest = 0;
+        for (int index = 0; index < EndgameTable.size(table.pieces().length); index++) {
+            longest = Math.max(longest, table.value(index));
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,72 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+import chess.Perft;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTests {
+
+    @Test
+    void startPositionIsBalanced() {
+        ChessGame game = new ChessGame();
+        assertEquals(0, Evaluation.evaluate(game.getBoard().getBitBoard(), ChessGame.TeamColor.WHITE));
+        assertEquals(24, game.getBoard().getBitBoard().phase());
+    }
+
+    @Test
+    void mirroredPositionsScoreTheSameForEachSide() {
+        BitBoard white = ChessGame.fromFen("r1bqk2r/pp3ppp/2n2n2/3p4/1b1P4/2N2N2/PP3PPP/R1BQKB1R w KQkq - 0 8")
+                .getBoard().getBitBoard();
+        BitBoard black = ChessGame.fromFen("r1bqkb1r/pp3ppp/2n2n2/1B1p4/3P4/2N2N2/PP3PPP/R1BQK2R b KQkq - 0 8")
+                .getBoard().getBitBoard();
+        assertEquals(Evaluation.evaluate(white, ChessGame.TeamColor.WHITE),
+                Evaluation.evaluate(black, ChessGame.TeamColor.BLACK));
+        assertNotEquals(0, Evaluation.evaluate(white, ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void endgameRewardsCentralKing() {
+        int central = Evaluation.evaluate(ChessGame.fromFen("8/8/8/8/4K3/8/4P3/k7 w - - 0 1")
+                .getBoard().getBitBoard(), ChessGame.TeamColor.WHITE);
+        int corner = Evaluation.evaluate(ChessGame.fromFen("8/8/8/8/8/8/4P3/k6K w - - 0 1")
+                .getBoard().getBitBoard(), ChessGame.TeamColor.WHITE);
+        assertTrue(central > corner);
+    }
+
+    @Test
+    void runningScoreMatchesRebuiltBoard() {
+        Random random = new Random(15);
+        Gson gson = new Gson();
+        MoveList moves = new MoveList();
+        for (int game = 0; game < 20; game++) {
+            ChessGame chessGame = ChessGame.fromFen(Perft.KIWIPETE.fen());
+            int plies = 0;
+            for (; plies < 60; plies++) {
+                chessGame.legalMoves(chessGame.getTeamTurn(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                chessGame.doMove(moves.get(random.nextInt(moves.size())));
+                BitBoard running = chessGame.getBoard().getBitBoard();
+                BitBoard rebuilt = gson.fromJson(gson.toJson(chessGame.getBoard()), ChessBoard.class).getBitBoard();
+                assertEquals(rebuilt.middlegameScore(), running.middlegameScore());
+                assertEquals(rebuilt.endgameScore(), running.endgameScore());
+                assertEquals(rebuilt.phase(), running.phase());
+            }
+            for (; plies > 0; plies--) {
+                chessGame.undoMove();
+            }
+            assertEquals(Evaluation.evaluate(ChessGame.fromFen(Perft.KIWIPETE.fen()).getBoard().getBitBoard(),
+                    ChessGame.TeamColor.WHITE), Evaluation.evaluate(chessGame.getBoard().getBitBoard(),
+                    ChessGame.TeamColor.WHITE));
+        }
+    }
+}
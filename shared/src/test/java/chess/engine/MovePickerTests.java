@@ -0,0 +1,95 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovePickerTests {
+
+    private static final int A1 = 0;
+    private static final int D2 = 11;
+    private static final int F3 = 21;
+    private static final int A4 = 24;
+    private static final int C4 = 26;
+
+    private final int[][] history = new int[2][64 * 64];
+    private final MovePicker picker = new MovePicker(history);
+
+    @Test
+    void givesEveryLegalMoveOnce() {
+        for (Perft.Position position : Perft.POSITIONS) {
+            ChessGame game = ChessGame.fromFen(position.fen());
+            MoveList legal = new MoveList();
+            MoveGenerator.generate(game, game.getTeamTurn(), legal);
+            int hashMove = legal.get(legal.size() - 1);
+
+            picker.reset(game, game.getTeamTurn(), hashMove, legal.get(0), Move.NONE, false);
+            List<Integer> picked = pickAll();
+            assertEquals(hashMove, picked.get(0));
+            assertEquals(legal.size(), picked.size(), position.name());
+            HashSet<Integer> expected = new HashSet<>();
+            for (int i = 0; i < legal.size(); i++) {
+                expected.add(legal.get(i));
+            }
+            assertEquals(expected, new HashSet<>(picked), position.name());
+        }
+    }
+
+    @Test
+    void ordersCapturesByVictimThenAttacker() {
+        // The rook on d2 and the pawn on c4 can both take the queen on d5; the knight on
+        // f3 can take the pawn on e5
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3qp3/2P5/5N2/3R4/4K3 w - - 0 1");
+        picker.reset(game, ChessGame.TeamColor.WHITE, Move.NONE, Move.NONE, Move.NONE, true);
+        List<Integer> picked = pickAll();
+
+        assertEquals(3, picked.size());
+        assertEquals(List.of(C4, D2, F3), List.of(Move.from(picked.get(0)), Move.from(picked.get(1)),
+                Move.from(picked.get(2))));
+    }
+
+    @Test
+    void ranksKillersThenHistoryAmongQuietMoves() {
+        ChessGame game = new ChessGame();
+        MoveList quiets = new MoveList();
+        MoveGenerator.generateQuiets(game, ChessGame.TeamColor.WHITE, quiets);
+        int firstKiller = quiets.get(3);
+        int secondKiller = quiets.get(7);
+        int favourite = quiets.get(11);
+        history[ChessGame.TeamColor.WHITE.ordinal()][Move.from(favourite) * 64 + Move.to(favourite)] = 100;
+
+        picker.reset(game, ChessGame.TeamColor.WHITE, Move.NONE, firstKiller, secondKiller, false);
+        List<Integer> picked = pickAll();
+        assertEquals(List.of(firstKiller, secondKiller, favourite), picked.subList(0, 3));
+        assertEquals(20, picked.size());
+    }
+
+    @Test
+    void skipsIllegalHashMove() {
+        ChessGame game = new ChessGame();
+        // A rook move from a1 to a4 through its own pawn
+        int hashMove = Move.encode(A1, A4);
+        picker.reset(game, ChessGame.TeamColor.WHITE, hashMove, Move.NONE, Move.NONE, false);
+        List<Integer> picked = pickAll();
+        assertFalse(picked.contains(hashMove));
+        assertEquals(20, picked.size());
+    }
+
+    private List<Integer> pickAll() {
+        List<Integer> picked = new ArrayList<>();
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            picked.add(move);
+        }
+        return picked;
+    }
+}
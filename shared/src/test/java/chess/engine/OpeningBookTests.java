@@ -0,0 +1,131 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTests {
+
+    private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+    private static final ChessMove D4 = new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null);
+    private static final ChessMove E5 = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsWeightedMovesForBookPositions() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        ChessGame game = new ChessGame();
+        builder.add(game, D4, 3);
+        builder.add(game, E4, 2);
+        builder.add(game, E4, 2);
+        ChessGame afterE4 = new ChessGame(game);
+        afterE4.doMove(E4);
+        builder.add(afterE4, E5, 1);
+        Path file = directory.resolve("book.bin");
+        builder.write(file);
+
+        try (OpeningBook book = new OpeningBook(file)) {
+            assertEquals(3, book.size());
+            assertEquals(List.of(new BookEntry(E4, 4), new BookEntry(D4, 3)), book.entries(game));
+            assertEquals(E4, book.bestMove(game));
+            assertEquals(E5, book.bestMove(afterE4));
+            afterE4.doMove(E5);
+            assertNull(book.bestMove(afterE4));
+            assertTrue(book.entries(afterE4).isEmpty());
+
+            int e4Picks = 0;
+            Random random = new Random(19);
+            for (int i = 0; i < 700; i++) {
+                e4Picks += book.randomMove(game, random).equals(E4) ? 1 : 0;
+            }
+            assertTrue(e4Picks > 330 && e4Picks < 470, "e4 picked " + e4Picks + " times");
+        }
+    }
+
+    @Test
+    void readsBooksKeyedTheWayPolyglotKeysThem() throws IOException {
+        // One entry as a Polyglot tool writes it: the start position's key, then e2e4
+        ByteBuffer entry = ByteBuffer.allocate(OpeningBook.ENTRY_BYTES);
+        entry.putLong(0x463B96181691FC9CL).putShort((short) (4 | 3 << 3 | 4 << 6 | 1 << 9)).putShort((short) 1);
+        Path file = directory.resolve("polyglot.bin");
+        Files.write(file, entry.array());
+
+        try (OpeningBook book = new OpeningBook(file)) {
+            assertEquals(E4, book.bestMove(new ChessGame()));
+        }
+    }
+
+    @Test
+    void comparesKeysAsUnsignedNumbers() throws IOException {
+        // Keys on both sides of the sign bit, which a signed search would find out of order
+        long[] keys = {0x7000000000000000L, 0x8000000000000000L, 0xF000000000000000L, 1L};
+        ChessGame[] games = new ChessGame[keys.length];
+        OpeningBookBuilder builder = new OpeningBookBuilder(game -> keys[game.getHalfmoveClock()]);
+        for (int i = 0; i < keys.length; i++) {
+            games[i] = new ChessGame();
+            games[i].setHalfmoveClock(i);
+            builder.add(games[i], i % 2 == 0 ? E4 : D4, 1);
+        }
+        Path file = directory.resolve("unsigned.bin");
+        builder.write(file);
+
+        try (OpeningBook book = new OpeningBook(file, game -> keys[game.getHalfmoveClock()])) {
+            for (int i = 0; i < keys.length; i++) {
+                assertEquals(i % 2 == 0 ? E4 : D4, book.bestMove(games[i]));
+            }
+        }
+    }
+
+    @Test
+    void storesCastlingAsKingTakesRook() {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        ChessMove kingside = new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null);
+        ChessMove queenside = new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 3), null);
+
+        int encoded = OpeningBook.encode(kingside, game);
+        // e1h1: start square e1 in bits 6-11, destination h1 in bits 0-5
+        assertEquals(4 << 6 | 7, encoded);
+        assertEquals(kingside, OpeningBook.decode(encoded, game));
+        assertEquals(queenside, OpeningBook.decode(OpeningBook.encode(queenside, game), game));
+    }
+
+    @Test
+    void searchPlaysBookMoveWithoutSearching() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        builder.add(new ChessGame(), D4, 1);
+        Path file = directory.resolve("search.bin");
+        builder.write(file);
+
+        try (OpeningBook book = new OpeningBook(file)) {
+            Search search = new Search();
+            search.setOpeningBook(book);
+            SearchResult result = search.search(new ChessGame(), SearchLimits.depth(3));
+            assertEquals(D4, result.bestMove());
+            assertEquals(0, result.nodes());
+
+            ChessGame afterD4 = new ChessGame();
+            afterD4.doMove(D4);
+            assertTrue(search.search(afterD4, SearchLimits.depth(3)).nodes() > 0);
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotWholeEntries() throws IOException {
+        Path file = directory.resolve("broken.bin");
+        Files.write(file, new byte[OpeningBook.ENTRY_BYTES + 3]);
+        assertThrows(IOException.class, () -> new OpeningBook(file));
+    }
+}
@@ -0,0 +1,54 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSearchTests {
+
+    @Test
+    void helpersAgreeOnForcedMate() {
+        try (ParallelSearch search = new ParallelSearch(4, new TranspositionTable(4))) {
+            ChessGame game = ChessGame.fromFen("k7/8/2K5/8/8/8/8/7R w - - 0 1");
+            SearchResult result = search.search(game, SearchLimits.depth(5));
+            assertEquals(Search.MATE - 3, result.score());
+            assertEquals(4, search.threads());
+        }
+    }
+
+    @Test
+    void stopEndsTheSearchOnEveryThread() throws InterruptedException {
+        try (ParallelSearch search = new ParallelSearch(3, new TranspositionTable(4))) {
+            ChessGame game = ChessGame.fromFen(Perft.KIWIPETE.fen());
+            Thread stopper = new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                search.stop();
+            });
+            stopper.start();
+            long start = System.currentTimeMillis();
+            SearchResult result = search.search(game, SearchLimits.time(60_000));
+            stopper.join();
+            assertTrue(System.currentTimeMillis() - start < 10_000);
+            assertNotNull(result.bestMove());
+            assertTrue(game.isMoveValid(result.bestMove()));
+
+            SearchResult again = search.search(game, SearchLimits.depth(3));
+            assertEquals(3, again.depth());
+        }
+    }
+
+    @Test
+    void singleThreadNeedsNoHelpers() {
+        try (ParallelSearch search = new ParallelSearch(1)) {
+            SearchResult result = search.search(new ChessGame(), SearchLimits.depth(3));
+            assertEquals(3, result.depth());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ParallelSearch(0));
+    }
+}
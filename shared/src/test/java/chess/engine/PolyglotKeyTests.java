@@ -0,0 +1,51 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PolyglotKeyTests {
+
+    /**
+     * The test positions and keys published with the Polyglot book format
+     */
+    private static final String[] FENS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+            "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2",
+            "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3",
+            "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4",
+            "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3",
+            "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4",
+    };
+    private static final long[] KEYS = {
+            0x463B96181691FC9CL, 0x823C9B50FD114196L, 0x0756B94461C50FB0L, 0x662FAFB965DB29D4L,
+            0x22A48B5A8E47FF78L, 0x652A607CA3F242C1L, 0x00FDD303C946BDD9L, 0x3C8123EA7B067637L,
+            0x5C3F9B829B279560L,
+    };
+
+    @Test
+    void keysMatchThePublishedTestPositions() {
+        for (int i = 0; i < FENS.length; i++) {
+            assertEquals(KEYS[i], PolyglotKey.of(ChessGame.fromFen(FENS[i])), FENS[i]);
+        }
+    }
+
+    @Test
+    void keysFollowPlayedMoves() {
+        // e4 d5 e5 f5 Ke2 Kf7: the en passant file only counts after f5, when e5xf6 is possible
+        ChessGame game = new ChessGame();
+        int[][] moves = {{2, 5, 4, 5}, {7, 4, 5, 4}, {4, 5, 5, 5}, {7, 6, 5, 6}, {1, 5, 2, 5}, {8, 5, 7, 6}};
+        assertEquals(KEYS[0], PolyglotKey.of(game));
+        for (int i = 0; i < moves.length; i++) {
+            game.doMove(new ChessMove(new ChessPosition(moves[i][0], moves[i][1]),
+                    new ChessPosition(moves[i][2], moves[i][3]), null));
+            assertEquals(KEYS[i + 1], PolyglotKey.of(game), "after move " + (i + 1));
+        }
+    }
+}
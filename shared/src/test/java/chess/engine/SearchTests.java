@@ -0,0 +1,107 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Perft;
+import chess.Tablebase;
+import chess.TablebaseGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTests {
+
+    private final Search search = new Search();
+
+    @Test
+    void findsMateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = search.search(game, SearchLimits.depth(4));
+        assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+        assertEquals(Search.MATE - 1, result.score());
+        assertTrue(Search.isMateScore(result.score()));
+    }
+
+    @Test
+    void findsMateInTwo() {
+        ChessGame game = ChessGame.fromFen("k7/8/2K5/8/8/8/8/7R w - - 0 1");
+        SearchResult result = search.search(game, SearchLimits.depth(5));
+        assertEquals(Search.MATE - 3, result.score());
+        assertEquals(3, result.principalVariation().size());
+        assertEquals(result.bestMove(), result.principalVariation().get(0));
+    }
+
+    @Test
+    void winsHangingQueen() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = search.search(game, SearchLimits.depth(3));
+        assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null), result.bestMove());
+        assertTrue(result.score() > 300);
+    }
+
+    @Test
+    void scoresFiftyMoveDrawAsDraw() {
+        // A queen up, but every move white has runs the halfmove clock out
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/3QK3 w - - 99 80");
+        SearchResult result = search.search(game, SearchLimits.depth(4));
+        assertEquals(0, result.score());
+    }
+
+    @Test
+    void scoresEndgamesFromTablebase() {
+        // Mate is too far off to find by searching two plies
+        ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/1Q2K3 w - - 0 1");
+        Tablebase tablebase = TablebaseGenerator.generate(List.of("KQvK"));
+        int value = tablebase.probe(game);
+        assertTrue(Tablebase.pliesToMate(value) > 4);
+
+        search.setTablebase(tablebase);
+        SearchResult result = search.search(game, SearchLimits.depth(2));
+        assertEquals(Search.MATE - Tablebase.pliesToMate(value), result.score());
+    }
+
+    @Test
+    void treatsTablebaseMatesLongerThanTheSearchCanReachAsMates() {
+        // A mate from a table can be as far off as its longest mate beyond the deepest ply
+        int score = Search.MATE - Search.MAX_PLY - Tablebase.LONGEST_MATE + 1;
+        assertTrue(Search.isMateScore(score));
+        assertTrue(Search.isMateScore(-score));
+        assertFalse(Search.isMateScore(Search.MATE - Search.MAX_PLY - Tablebase.LONGEST_MATE));
+
+        assertEquals(score + 10, Search.scoreToTable(score, 10));
+        assertEquals(score, Search.scoreFromTable(score + 10, 10));
+        assertEquals(-score - 10, Search.scoreToTable(-score, 10));
+        assertEquals(-score, Search.scoreFromTable(-score - 10, 10));
+    }
+
+    @Test
+    void reportsNoMoveWhenCheckmated() {
+        ChessGame game = ChessGame.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        SearchResult result = search.search(game, SearchLimits.depth(3));
+        assertNull(result.bestMove());
+        assertEquals(-Search.MATE, result.score());
+        assertTrue(result.principalVariation().isEmpty());
+    }
+
+    @Test
+    void stopsAtNodeLimitAndLeavesGameUntouched() {
+        ChessGame game = ChessGame.fromFen(Perft.KIWIPETE.fen());
+        ChessBoard before = game.getBoard().clone();
+        SearchResult result = search.search(game, SearchLimits.nodes(20000));
+        assertNotNull(result.bestMove());
+        assertTrue(result.nodes() < 20000 + 2048);
+        assertTrue(game.isMoveValid(result.bestMove()));
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void rejectsMissingLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchLimits(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> SearchLimits.time(-1));
+    }
+}
@@ -0,0 +1,83 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Move;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTests {
+
+    @Test
+    void storedEntriesReadBack() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        int move = Move.encode(12, 28) | Move.DOUBLE_PUSH;
+        table.store(key, move, -Search.MATE + 3, 7, TranspositionTable.LOWER);
+
+        long entry = table.probe(key);
+        assertNotEquals(TranspositionTable.MISS, entry);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-Search.MATE + 3, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(TranspositionTable.MISS, table.probe(key ^ 1L << 40));
+    }
+
+    @Test
+    void deeperEntriesSurviveUntilNextSearch() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 5L << 32;
+        long other = key | 1;
+        table.store(key, Move.NONE, 10, 8, TranspositionTable.EXACT);
+        table.store(other, Move.NONE, 20, 3, TranspositionTable.EXACT);
+        assertEquals(10, TranspositionTable.score(table.probe(key)));
+
+        table.newSearch();
+        table.store(other, Move.NONE, 20, 3, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.MISS, table.probe(key));
+        assertEquals(20, TranspositionTable.score(table.probe(other)));
+    }
+
+    @Test
+    void concurrentWritersNeverProduceMismatchedEntries() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        AtomicInteger corrupted = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    long key = (random.nextLong() & 0x3FL) << 32 | random.nextInt(1 << 16);
+                    int depth = (int) (key & 0x3F);
+                    long entry = table.probe(key);
+                    if (entry != TranspositionTable.MISS && TranspositionTable.score(entry) != (int) (key & 0x7FF)) {
+                        corrupted.incrementAndGet();
+                    }
+                    table.store(key, Move.NONE, (int) (key & 0x7FF), depth, TranspositionTable.EXACT);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, corrupted.get());
+    }
+
+    @Test
+    void sharedTableSpeedsUpRepeatedSearch() {
+        TranspositionTable table = new TranspositionTable(4);
+        ChessGame game = ChessGame.fromFen(Perft.POSITION_6.fen());
+        SearchResult first = new Search(table).search(game, SearchLimits.depth(4));
+        SearchResult second = new Search(table).search(game, SearchLimits.depth(4));
+        assertEquals(first.bestMove(), second.bestMove());
+        assertEquals(first.score(), second.score());
+        assertTrue(second.nodes() < first.nodes());
+    }
+}
@@ -0,0 +1,176 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnReaderTests {
+
+    static final String OPERA_GAME = """
+            [Event "Paris Opera"]
+            [Site "Paris FRA"]
+            [Date "1858.??.??"]
+            [Round "?"]
+            [White "Paul Morphy"]
+            [Black "Duke Karl / Count Isouard"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 d6 3. d4 Bg4 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6 7. Qb3 Qe7
+            8. Nc3 c6 9. Bg5 b5 10. Nxb5 cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7
+            14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0
+
+            """;
+
+    static final String OPERA_GAME_END = "1n1Rkb1r/p4ppp/4q3/4p1B1/4P3/8/PPP2PPP/2K5 b k - 1 17";
+
+    @Test
+    void readsGamesOneAtATime() throws IOException, InvalidMoveException {
+        String text = OPERA_GAME + """
+                [Event "Casual"]
+                [White "A \\"Quoted\\" Name"]
+                % an escaped line that is not part of the game
+                1.e4 {a comment (with parentheses)} e5!? ; the rest of the line is a comment
+                2.Nf3 $1 (2. f4 exf4 (2... d5) 3. Nf3) 2...Nc6 3. 0-0-0?? 1/2-1/2
+                """;
+        try (PgnReader reader = new PgnReader(new StringReader(text))) {
+            PgnGame opera = reader.next();
+            assertEquals("Paul Morphy", opera.tag("White"));
+            assertEquals(PgnGame.WHITE_WINS, opera.result());
+            assertEquals(33, opera.moves().size());
+            assertEquals(OPERA_GAME_END, opera.replay().toFen());
+            assertTrue(opera.replay().isInCheckmate(ChessGame.TeamColor.BLACK));
+
+            assertThrows(PgnException.class, reader::next);
+        }
+
+        text = text.replace(" 3. 0-0-0??", "");
+        try (PgnReader reader = new PgnReader(new StringReader(text))) {
+            reader.next();
+            PgnGame casual = reader.next();
+            assertEquals("A \"Quoted\" Name", casual.tag("White"));
+            assertNull(casual.tag("Black"));
+            assertEquals(PgnGame.DRAW, casual.result());
+            assertEquals(4, casual.moves().size());
+            assertEquals(new ChessMove(new ChessPosition(8, 2), new ChessPosition(6, 3), null), casual.moves().get(3));
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void readsGamesFromTheirFenTag() throws IOException, InvalidMoveException {
+        String text = """
+                [FEN "r3k3/1P6/8/3pP3/8/8/8/4K3 w - d6 0 30"]
+                [SetUp "1"]
+
+                30. exd6 Kd7 31. bxa8=Q Kxd6 *
+                """;
+        PgnGame game = new PgnReader(new StringReader(text)).next();
+        assertEquals(PgnGame.UNFINISHED, game.result());
+        assertEquals(ChessPiece.PieceType.QUEEN, game.moves().get(2).getPromotionPiece());
+        assertEquals("Q7/8/3k4/8/8/8/8/4K3 w - - 0 32", game.replay().toFen());
+    }
+
+    @Test
+    void skipsGamesThatCannotBeRead() throws IOException {
+        String text = """
+                [Event "Broken"]
+
+                1. e4 e5 2. Ke3 Nc6 (2... Nf6 3. Ke2) 3. Bc4 0-1
+
+                [Event "Bad tag
+                [White "Someone"]
+
+                1. d4 *
+
+                [Event "Fine"]
+
+                1. d4 d5 *
+                """;
+        try (PgnReader reader = new PgnReader(new StringReader(text))) {
+            PgnException illegal = assertThrows(PgnException.class, reader::next);
+            assertEquals(3, illegal.getLineNumber());
+            assertTrue(illegal.getMessage().contains("Ke3"), illegal.getMessage());
+
+            PgnException tag = assertThrows(PgnException.class, reader::next);
+            assertEquals(5, tag.getLineNumber());
+
+            PgnGame fine = reader.next();
+            assertEquals("Fine", fine.tag("Event"));
+            assertEquals(2, fine.moves().size());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void endsGamesWithoutAResultAtTheNextGame() throws IOException {
+        String text = """
+                [Event "One"]
+                1. e4 e5
+                [Event "Two"]
+                1. d4
+                """;
+        try (PgnReader reader = new PgnReader(new StringReader(text))) {
+            PgnGame one = reader.next();
+            assertEquals(PgnGame.UNFINISHED, one.result());
+            assertEquals(2, one.moves().size());
+            assertEquals("Two", reader.next().tag("Event"));
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void rejectsAmbiguousMoves() {
+        String text = """
+                [FEN "4k3/8/8/8/8/8/K7/R6R w - - 0 1"]
+
+                1. Rd1 *
+                """;
+        PgnException ambiguous = assertThrows(PgnException.class, () -> new PgnReader(new StringReader(text)).next());
+        assertTrue(ambiguous.getMessage().contains("ambiguous"), ambiguous.getMessage());
+    }
+
+    @Test
+    void streamsFilesWithoutReadingThemWhole() throws IOException {
+        int games = 2000;
+        Reader archive = new Reader() {
+            private int written;
+            private int offset;
+
+            @Override
+            public int read(char[] buffer, int start, int length) {
+                if (written == games) {
+                    return -1;
+                }
+                int count = Math.min(length, OPERA_GAME.length() - offset);
+                OPERA_GAME.getChars(offset, offset + count, buffer, start);
+                offset += count;
+                if (offset == OPERA_GAME.length()) {
+                    offset = 0;
+                    written++;
+                }
+                return count;
+            }
+
+            @Override
+            public void close() { }
+        };
+        int read = 0;
+        try (PgnReader reader = new PgnReader(archive)) {
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                assertEquals(33, game.moves().size());
+                read++;
+            }
+            assertEquals(games * 12 + 1, reader.getLineNumber());
+        }
+        assertEquals(games, read);
+    }
+}
@@ -0,0 +1,98 @@
+package chess.pgn;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnWriterTests {
+
+    @Test
+    void writesGamesBackAsTheyWereRead() throws IOException {
+        PgnGame opera = new PgnReader(new StringReader(PgnReaderTests.OPERA_GAME)).next();
+        assertEquals(PgnReaderTests.OPERA_GAME, write(opera));
+    }
+
+    @Test
+    void fillsInTheSevenTagRosterAndWrapsLines() throws IOException {
+        PgnGame opera = new PgnReader(new StringReader(PgnReaderTests.OPERA_GAME)).next();
+        PgnGame game = new PgnGame(Map.of("Annotator", "Back\\slash"), opera.moves(), PgnGame.WHITE_WINS);
+        String text = write(game);
+        assertTrue(text.startsWith("""
+                [Event "?"]
+                [Site "?"]
+                [Date "????.??.??"]
+                [Round "?"]
+                [White "?"]
+                [Black "?"]
+                [Result "1-0"]
+                [Annotator "Back\\\\slash"]
+
+                1. e4 e5"""), text);
+        for (String line : text.split("\n")) {
+            assertTrue(line.length() <= 80, line);
+        }
+
+        PgnGame reread = new PgnReader(new StringReader(text)).next();
+        assertEquals(opera.moves(), reread.moves());
+        assertEquals("Back\\slash", reread.tag("Annotator"));
+    }
+
+    @Test
+    void writesOnlyTheDisambiguationMovesNeed() throws IOException {
+        // Queens on h4, e4 and h1 can all reach e1
+        String fen = "2k5/8/8/8/4Q2Q/K7/8/7Q w - - 0 1";
+        assertEquals("1. Qh4e1 *", movetext(fen, move(4, 8, 1, 5)));
+        assertEquals("1. Qee1 *", movetext(fen, move(4, 5, 1, 5)));
+        assertEquals("1. Q1e2 *", movetext("2k5/8/8/8/4Q3/K7/8/4Q3 w - - 0 1", move(1, 5, 2, 5)));
+        assertEquals("1. R1a3 *", movetext("2k5/8/8/R7/8/8/8/R3K3 w - - 0 1", move(1, 1, 3, 1)));
+    }
+
+    @Test
+    void numbersGamesThatStartWithBlackToMove() throws IOException {
+        String fen = "4k3/8/8/8/4p3/8/3P4/4K3 w - - 0 30";
+        ChessMove push = move(2, 4, 4, 4);
+        ChessMove enPassant = new ChessMove(new ChessPosition(4, 5), new ChessPosition(3, 4), null);
+        assertEquals("30. d4 exd3 *", movetext(fen, push, enPassant));
+        assertEquals("30... exd3 *", movetext("4k3/8/8/8/3Pp3/8/8/4K3 b - d3 0 30", enPassant));
+    }
+
+    @Test
+    void marksChecksAndMates() throws IOException {
+        String fen = "6k1/5ppp/8/8/8/8/1P6/R3K3 w Q - 0 1";
+        assertEquals("1. O-O-O *", movetext(fen, move(1, 5, 1, 3)));
+        assertEquals("1. Ra8# *", movetext(fen, move(1, 1, 8, 1)));
+        assertEquals("1. Kd2 Kh8 2. Ra8# *", movetext(fen, move(1, 5, 2, 4), move(8, 7, 8, 8), move(1, 1, 8, 1)));
+        assertEquals("1. b4 g6 2. Ra8+ *", movetext(fen, move(2, 2, 4, 2), move(7, 7, 6, 7), move(1, 1, 8, 1)));
+    }
+
+    @Test
+    void rejectsIllegalMoves() {
+        PgnGame game = new PgnGame(Map.of(), List.of(move(1, 2, 3, 2)), PgnGame.UNFINISHED);
+        assertThrows(IllegalArgumentException.class, () -> write(game));
+    }
+
+    private static ChessMove move(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return new ChessMove(new ChessPosition(fromRow, fromColumn), new ChessPosition(toRow, toColumn), null);
+    }
+
+    private static String movetext(String fen, ChessMove... moves) throws IOException {
+        String text = write(new PgnGame(Map.of("FEN", fen, "SetUp", "1"), List.of(moves), PgnGame.UNFINISHED));
+        return text.substring(text.indexOf("\n\n") + 2).strip();
+    }
+
+    private static String write(PgnGame game) throws IOException {
+        StringWriter text = new StringWriter();
+        try (PgnWriter writer = new PgnWriter(text)) {
+            writer.write(game);
+        }
+        return text.toString();
+    }
+}